@@ -0,0 +1,105 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.LocalRuntime;
+
+import java.math.BigInteger;
+
+/**
+ * 统计每个合约热点入口平均每次调用产生的外部命令、转账、合约调用和事件次数
+ * <p>
+ * 用法: java -cp target/benchmarks.jar io.nuls.contract.pocm.benchmark.CallCountReport [userCount] [agentCount] [ops] [nrc20] [lp] [lpFlush=na]
+ */
+public class CallCountReport {
+
+    public static void main(String[] args) {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int agentCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int ops = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        boolean nrc20Candy = false;
+        boolean lpMode = false;
+        BigInteger lpFlushThreshold = null;
+        for (int i = 3; i < args.length; i++) {
+            if ("nrc20".equals(args[i])) {
+                nrc20Candy = true;
+            } else if ("lp".equals(args[i])) {
+                lpMode = true;
+            } else if (args[i].startsWith("lpFlush=")) {
+                lpFlushThreshold = new BigInteger(args[i].substring("lpFlush=".length()));
+            }
+        }
+        System.out.println("userCount=" + userCount + ", agentCount=" + agentCount + ", ops=" + ops
+                + ", nrc20Candy=" + nrc20Candy + ", lpMode=" + lpMode + ", lpFlush=" + lpFlushThreshold);
+
+        PocmHarness harness = new PocmHarness().deploy(userCount, agentCount, nrc20Candy, lpMode);
+        if (lpFlushThreshold != null) {
+            harness.asOwner();
+            harness.contract().updateLpFlushThreshold(lpFlushThreshold);
+            LocalRuntime.getCounters().clear();
+        }
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            harness.deposit(PocmHarness.user(i % userCount), PocmHarness.ONE_NULS);
+        }
+        print("depositForOwn", ops);
+
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            harness.withdraw(PocmHarness.user(i % userCount), PocmHarness.ONE_NULS);
+        }
+        print("withdraw", ops);
+
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            harness.receiveAwards(PocmHarness.user(i % userCount));
+        }
+        print("receiveAwardsByAddress", ops);
+
+        // 领取、追加抵押、退出部分抵押，按逻辑操作数统计
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            Address user = PocmHarness.user(i % userCount);
+            harness.receiveAwards(user);
+            harness.deposit(user, PocmHarness.ONE_NULS);
+            harness.withdraw(user, PocmHarness.ONE_NULS);
+        }
+        print("separateCalls", ops * 3);
+
+        String deposit = "deposit:" + PocmHarness.ONE_NULS;
+        String withdraw = "withdraw:" + PocmHarness.ONE_NULS;
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            harness.multicall(PocmHarness.user(i % userCount), PocmHarness.ONE_NULS, "receive", deposit, withdraw);
+        }
+        print("multicall", ops * 3);
+
+        // 托管方代多个地址抵押，每批100个地址，按地址数统计
+        int batchSize = 100;
+        for (int i = 0; i < ops; i += batchSize) {
+            LocalRuntime.nextBlock(1L);
+            // 同一批次的地址不能重复
+            int size = Math.min(Math.min(batchSize, userCount), ops - i);
+            String[] addresses = new String[size];
+            BigInteger[] amounts = new BigInteger[size];
+            for (int j = 0; j < size; j++) {
+                addresses[j] = PocmHarness.user((i + j) % userCount).toString();
+                amounts[j] = PocmHarness.ONE_NULS;
+            }
+            harness.depositForMany(PocmHarness.OWNER, addresses, amounts);
+        }
+        print("depositForMany", ops);
+    }
+
+    private static void print(String name, int ops) {
+        LocalRuntime.Counters counters = LocalRuntime.getCounters();
+        System.out.println(String.format("%-24s externalCmds/op=%.3f transfers/op=%.3f lockedTransfers/op=%.3f contractCalls/op=%.3f events/op=%.3f",
+                name,
+                (double) counters.externalCmds / ops,
+                (double) counters.transfers / ops,
+                (double) counters.lockedTransfers / ops,
+                (double) counters.contractCalls / ops,
+                (double) counters.events / ops));
+        System.out.println(String.format("%-24s %s", "", counters.byName));
+        counters.clear();
+    }
+}
@@ -0,0 +1,75 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.LocalRuntime;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合约热点入口的基准测试：depositForOwn, withdraw, receiveAwardsByAddress
+ * <p>
+ * 每次操作轮换到下一个用户，并推进一个区块高度，使每次操作都需要重新累计奖励
+ * <p>
+ * 领取、追加抵押、再领取的用户流程分别以三笔交易(separateCalls)和一次multicall执行
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ContractBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int userCount;
+
+    @Param({"0", "4", "16"})
+    public int agentCount;
+
+    @Param({"false", "true"})
+    public boolean nrc20Candy;
+
+    private PocmHarness harness;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        harness = new PocmHarness().deploy(userCount, agentCount, nrc20Candy);
+    }
+
+    private Address nextUser() {
+        LocalRuntime.nextBlock(1L);
+        Address user = PocmHarness.user(next);
+        next = (next + 1) % userCount;
+        return user;
+    }
+
+    @Benchmark
+    public void depositForOwn() {
+        harness.deposit(nextUser(), PocmHarness.ONE_NULS);
+    }
+
+    @Benchmark
+    public void withdraw() {
+        harness.withdraw(nextUser(), PocmHarness.ONE_NULS);
+    }
+
+    @Benchmark
+    public void receiveAwardsByAddress() {
+        harness.receiveAwards(nextUser());
+    }
+
+    @Benchmark
+    public void separateCalls() {
+        Address user = nextUser();
+        harness.receiveAwards(user);
+        harness.deposit(user, PocmHarness.ONE_NULS);
+        harness.receiveAwards(user);
+    }
+
+    @Benchmark
+    public void multicall() {
+        harness.multicall(nextUser(), PocmHarness.ONE_NULS, "receive", "deposit:" + PocmHarness.ONE_NULS, "receive");
+    }
+}
@@ -0,0 +1,81 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.pocm.manager.ConsensusManager;
+import io.nuls.contract.pocm.manager.PocmInfo;
+import io.nuls.contract.pocm.manager.UserInfoManager;
+import io.nuls.contract.pocm.manager.deposit.DepositOthersManager;
+import io.nuls.contract.pocm.model.ConsensusAgentDepositInfo;
+import io.nuls.contract.sdk.LocalRuntime;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DepositOthersManager.deposit的基准测试
+ * <p>
+ * 预先委托depositEntries笔，每次操作委托一笔最小金额后再退出同样的金额，使委托列表的长度保持稳定
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DepositOthersManagerBenchmark {
+
+    public static final BigInteger MIN_JOIN_DEPOSIT = PocmHarness.ONE_NULS.multiply(BigInteger.valueOf(2000));
+
+    @Param({"4", "16", "64"})
+    public int agentCount;
+
+    @Param({"10", "100", "500"})
+    public int depositEntries;
+
+    // 0-依次遍历节点，1-优先填满节点，2-平均分散到各节点
+    @Param({"0", "1", "2"})
+    public int depositPolicy;
+
+    private ConsensusManager consensusManager;
+    private DepositOthersManager depositOthersManager;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PocmHarness harness = new PocmHarness().deploy(0, 0);
+        LocalConsensus consensus = harness.consensus();
+        harness.asOwner();
+        consensusManager = new ConsensusManager(new UserInfoManager(), new HashMap<String, ConsensusAgentDepositInfo>(),
+                harness.contract(), new PocmInfo());
+        depositOthersManager = new DepositOthersManager();
+        depositOthersManager.modifyMinJoinDeposit(MIN_JOIN_DEPOSIT);
+        depositOthersManager.modifyDepositPolicy(depositPolicy);
+        for (int i = 0; i < agentCount; i++) {
+            String agentHash = PocmHarness.agentHash(i);
+            consensus.registerAgent(agentHash, PocmHarness.agentAddress(i).toString(), MIN_JOIN_DEPOSIT.multiply(BigInteger.TEN));
+            depositOthersManager.addOtherAgent(agentHash);
+        }
+        // 金额各不相同的委托，使有序插入需要扫描列表
+        for (int i = 0; i < depositEntries; i++) {
+            BigInteger amount = MIN_JOIN_DEPOSIT.add(PocmHarness.ONE_NULS.multiply(BigInteger.valueOf(i)));
+            fund(amount);
+            depositOthersManager.deposit(amount, consensusManager);
+        }
+        LocalRuntime.getCounters().clear();
+    }
+
+    private void fund(BigInteger amount) {
+        LocalRuntime.credit(PocmHarness.CONTRACT, amount);
+        consensusManager.addAvailableAmount(amount);
+    }
+
+    @Benchmark
+    public void depositAndWithdraw() {
+        BigInteger amount = MIN_JOIN_DEPOSIT.add(PocmHarness.ONE_NULS.multiply(BigInteger.valueOf(depositEntries / 2)));
+        fund(amount);
+        depositOthersManager.deposit(amount, consensusManager);
+        depositOthersManager.withdrawInner(amount, consensusManager);
+        consensusManager.subAvailableAmount(amount);
+        LocalRuntime.credit(PocmHarness.CONTRACT, amount.negate());
+    }
+}
@@ -0,0 +1,245 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.pocm.PocmContract;
+import io.nuls.contract.pocm.event.CurrentMiningInfoEvent;
+import io.nuls.contract.pocm.model.CurrentMingInfo;
+import io.nuls.contract.pocm.model.UserDepositInfo;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Event;
+import io.nuls.contract.sdk.LocalRuntime;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 把合约事件记录为indexer模块的事件日志格式，并生成用于校验的合约视图结果
+ * <p>
+ * 每次调用的事件先缓存，调用成功后再写入日志
+ * <p>
+ * 用法: java -cp target/benchmarks.jar io.nuls.contract.pocm.benchmark.EventLogRecorder dir [userCount] [ops] [seed] [lp] [drain]
+ * drain: 执行到一半时转出合约的全部糖果，覆盖糖果不足时不再发放奖励的情况
+ * 生成dir/events.log和dir/expected.txt，再用indexer模块的IndexerMain dir --verify=dir/expected.txt校验
+ */
+public class EventLogRecorder implements LocalRuntime.EventListener {
+
+    private final List<String> pending = new ArrayList<String>();
+    private final List<String> lines = new ArrayList<String>();
+
+    @Override
+    public void onEvent(Event event) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LocalRuntime.getBlockNumber()).append('\t').append(event.getClass().getSimpleName());
+        if (event instanceof CurrentMiningInfoEvent) {
+            List<String> receivers = new ArrayList<String>();
+            List<BigInteger> amounts = new ArrayList<BigInteger>();
+            for (Object info : (Collection<?>) fieldValue(event, "mingInfosList")) {
+                receivers.add(((CurrentMingInfo) info).getReceiverMiningAddress());
+                amounts.add(((CurrentMingInfo) info).getMiningAmount());
+            }
+            sb.append("\treceivers=").append(join(receivers)).append("\tamounts=").append(join(amounts));
+        } else {
+            for (Field field : event.getClass().getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Object value = fieldValue(event, field.getName());
+                sb.append('\t').append(field.getName()).append('=').append(value instanceof Collection ? join((Collection<?>) value) : value);
+            }
+        }
+        pending.add(sb.toString());
+    }
+
+    /**
+     * 调用成功，写入缓存的事件
+     */
+    public void commit() {
+        lines.addAll(pending);
+        pending.clear();
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    private static Object fieldValue(Object target, String name) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String join(Collection<?> values) {
+        StringBuilder sb = new StringBuilder();
+        for (Object value : values) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : "pocm-index");
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int ops = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+        boolean lpMode = false;
+        boolean drain = false;
+        for (int i = 4; i < args.length; i++) {
+            if ("lp".equals(args[i])) {
+                lpMode = true;
+            } else if ("drain".equals(args[i])) {
+                drain = true;
+            }
+        }
+        Random random = new Random(seed);
+
+        EventLogRecorder recorder = new EventLogRecorder();
+        PocmHarness harness = new PocmHarness().eventListener(recorder).deploy(0, 2, false, lpMode);
+        PocmContract contract = harness.contract();
+        recorder.commit();
+        // 新增开启节点奖励的节点，节点创建者的保证金参与奖励计算
+        harness.asOfficial();
+        contract.openConsensusNodeAward();
+        int agentCount = 2;
+        List<String> liveAgents = new ArrayList<String>();
+        liveAgents.add(PocmHarness.agentHash(0));
+        liveAgents.add(PocmHarness.agentHash(1));
+        // 本地替身中revert不回滚状态，场景只执行满足前置条件的调用
+        int skipped = 0;
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(random.nextInt(4));
+            if (drain && i == ops / 2) {
+                // 转出全部糖果，之后的领取不再发放奖励，合约停止接受抵押
+                harness.asOfficial();
+                contract.transferProjectCandyAsset(PocmHarness.OFFICIAL,
+                        PocmHarness.CONTRACT.balance(PocmHarness.CANDY_CHAIN_ID, PocmHarness.CANDY_ASSET_ID));
+                recorder.commit();
+            }
+            boolean accepting = (Boolean) fieldValue(contract, "isAcceptStaking");
+            Address user = PocmHarness.user(random.nextInt(userCount));
+            BigInteger amount = PocmHarness.ONE_NULS.multiply(BigInteger.valueOf(1 + random.nextInt(3000)));
+            BigInteger stake = stakeOf(contract, user);
+            boolean exists = contract.getDepositInfo(user) != null;
+            int op = random.nextInt(100);
+            if (op < 35 && accepting) {
+                harness.deposit(user, amount);
+            } else if (op >= 35 && op < 50 && stake.signum() > 0) {
+                harness.withdraw(user, amount.min(stake));
+            } else if (op >= 50 && op < 58 && stake.signum() > 0) {
+                harness.withdraw(user, stake);
+            } else if (op >= 58 && op < 68 && exists) {
+                harness.receiveAwards(user);
+            } else if (op >= 68 && op < 72 && exists) {
+                LocalRuntime.call(user, BigInteger.ZERO);
+                contract.emergencyWithdraw();
+            } else if (op >= 72 && op < 78 && accepting) {
+                // 两个不同的地址
+                int first = random.nextInt(userCount);
+                int second = (first + 1 + random.nextInt(userCount - 1)) % userCount;
+                harness.depositForMany(user, new String[]{PocmHarness.user(first).toString(),
+                        PocmHarness.user(second).toString()}, new BigInteger[]{amount, PocmHarness.STAKE});
+            } else if (op >= 78 && op < 84 && accepting) {
+                harness.multicall(user, amount, "deposit:" + amount, "withdraw:" + PocmHarness.ONE_NULS, "receive");
+            } else if (op >= 84 && op < 87 && accepting) {
+                String agentHash = PocmHarness.agentHash(agentCount);
+                harness.consensus().registerAgent(agentHash, PocmHarness.agentAddress(agentCount).toString(),
+                        PocmHarness.ONE_NULS.multiply(BigInteger.valueOf(20000)));
+                agentCount++;
+                harness.asOwner();
+                contract.addOtherAgent(agentHash);
+                liveAgents.add(agentHash);
+            } else if (op >= 87 && op < 90 && !liveAgents.isEmpty()) {
+                String agentHash = liveAgents.remove(random.nextInt(liveAgents.size()));
+                harness.asOwner();
+                if (random.nextBoolean()) {
+                    contract.removeAgent(agentHash);
+                } else {
+                    contract.emergencyRemoveAgent(agentHash);
+                }
+            } else if (op >= 90 && op < 93 && accepting) {
+                harness.deposit(PocmHarness.agentAddress(random.nextInt(agentCount)), amount);
+            } else if (op >= 93 && op < 95) {
+                harness.asOwner();
+                String[] addresses = new String[]{user.toString(), PocmHarness.user(random.nextInt(userCount)).toString()};
+                if (random.nextBoolean()) {
+                    contract.quitByAddresses(addresses);
+                } else {
+                    contract.tryQuitByAddresses(addresses);
+                }
+            } else if (op >= 95 && op < 97) {
+                harness.asOfficial();
+                if (random.nextBoolean()) {
+                    contract.giveUpByAddresses(new String[]{user.toString()});
+                } else {
+                    contract.tryGiveUpByAddresses(new String[]{user.toString()});
+                }
+            } else if (op >= 97) {
+                harness.asOwner();
+                contract.tryReceiveByAddresses(new String[]{user.toString(), PocmHarness.agentAddress(random.nextInt(agentCount)).toString()});
+            } else {
+                skipped++;
+                continue;
+            }
+            recorder.commit();
+        }
+        LocalRuntime.nextBlock(5L);
+
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        writeLines(new File(dir, "events.log"), recorder.getLines());
+        List<String> expected = new ArrayList<String>();
+        expected.add("height=" + LocalRuntime.getBlockNumber());
+        List<Address> addresses = new ArrayList<Address>();
+        for (int i = 0; i < userCount; i++) {
+            addresses.add(PocmHarness.user(i));
+        }
+        for (int i = 0; i < agentCount; i++) {
+            addresses.add(PocmHarness.agentAddress(i));
+        }
+        for (Address address : addresses) {
+            UserDepositInfo info = contract.getDepositInfo(address);
+            if (info == null) {
+                expected.add(address + "\tnull\tnull");
+            } else {
+                expected.add(address + "\t" + info.getAmount() + "\t" + contract.pendingToken(address));
+            }
+        }
+        writeLines(new File(dir, "expected.txt"), expected);
+        System.out.println("ops=" + ops + ", skipped=" + skipped + ", records=" + recorder.getLines().size()
+                + ", height=" + LocalRuntime.getBlockNumber() + ", dir=" + dir.getAbsolutePath());
+    }
+
+    private static BigInteger stakeOf(PocmContract contract, Address user) {
+        UserDepositInfo info = contract.getDepositInfo(user);
+        return info == null ? BigInteger.ZERO : info.getAmount();
+    }
+
+    private static void writeLines(File file, List<String> lines) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.pocm.PocmContract;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.LocalProfiler;
+import io.nuls.contract.sdk.LocalRuntime;
+
+import java.math.BigInteger;
+
+/**
+ * 按合约入口方法输出剖析报告：入口耗时、SDK操作(外部命令、转账、合约调用、事件)的次数和耗时、
+ * 采样得到的合约内部方法(管理器、资产包装类等)耗时占比
+ * <p>
+ * 先在另一份部署上执行一遍同样的调用预热JIT，只统计第二遍
+ * <p>
+ * 用法: java -cp target/benchmarks.jar io.nuls.contract.pocm.benchmark.GasProfileReport [userCount] [agentCount] [ops] [sampleMicros] [maxFrames] [nrc20] [lp]
+ */
+public class GasProfileReport {
+
+    public static void main(String[] args) {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int agentCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int ops = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        long sampleMicros = args.length > 3 ? Long.parseLong(args[3]) : 100L;
+        int maxFrames = args.length > 4 ? Integer.parseInt(args[4]) : 15;
+        boolean nrc20Candy = false;
+        boolean lpMode = false;
+        for (int i = 5; i < args.length; i++) {
+            if ("nrc20".equals(args[i])) {
+                nrc20Candy = true;
+            } else if ("lp".equals(args[i])) {
+                lpMode = true;
+            }
+        }
+        System.out.println("userCount=" + userCount + ", agentCount=" + agentCount + ", ops=" + ops
+                + ", sampleMicros=" + sampleMicros + ", nrc20Candy=" + nrc20Candy + ", lpMode=" + lpMode);
+
+        run(new PocmHarness().deploy(userCount, agentCount, nrc20Candy, lpMode), new LocalProfiler(0L), ops);
+
+        PocmHarness harness = new PocmHarness().deploy(userCount, agentCount, nrc20Candy, lpMode);
+        LocalProfiler profiler = new LocalProfiler(sampleMicros).start();
+        run(harness, profiler, ops);
+        profiler.stop();
+        System.out.print(profiler.report(maxFrames));
+    }
+
+    private static void run(PocmHarness harness, LocalProfiler profiler, int ops) {
+        LocalRuntime.setProfiler(profiler);
+        PocmContract contract = harness.contract();
+        int userCount = harness.userCount();
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            profiler.begin("depositForOwn");
+            harness.deposit(PocmHarness.user(i % userCount), PocmHarness.ONE_NULS);
+            profiler.end();
+        }
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            profiler.begin("withdraw");
+            harness.withdraw(PocmHarness.user(i % userCount), PocmHarness.ONE_NULS);
+            profiler.end();
+        }
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            profiler.begin("receiveAwardsByAddress");
+            harness.receiveAwards(PocmHarness.user(i % userCount));
+            profiler.end();
+        }
+        String deposit = "deposit:" + PocmHarness.ONE_NULS;
+        String withdraw = "withdraw:" + PocmHarness.ONE_NULS;
+        for (int i = 0; i < ops; i++) {
+            LocalRuntime.nextBlock(1L);
+            profiler.begin("multicall");
+            harness.multicall(PocmHarness.user(i % userCount), PocmHarness.ONE_NULS, "receive", deposit, withdraw);
+            profiler.end();
+        }
+        // 每批10个地址
+        int batchSize = 10;
+        for (int i = 0; i < ops; i += batchSize) {
+            LocalRuntime.nextBlock(1L);
+            // 同一批次的地址不能重复
+            int size = Math.min(Math.min(batchSize, userCount), ops - i);
+            String[] addresses = new String[size];
+            BigInteger[] amounts = new BigInteger[size];
+            for (int j = 0; j < size; j++) {
+                addresses[j] = PocmHarness.user((i + j) % userCount).toString();
+                amounts[j] = PocmHarness.ONE_NULS;
+            }
+            profiler.begin("depositForMany");
+            harness.depositForMany(PocmHarness.OWNER, addresses, amounts);
+            profiler.end();
+            LocalRuntime.nextBlock(1L);
+            harness.asOwner();
+            profiler.begin("tryReceiveByAddresses");
+            contract.tryReceiveByAddresses(addresses);
+            profiler.end();
+        }
+        for (int i = 0; i < ops; i += batchSize) {
+            LocalRuntime.nextBlock(1L);
+            harness.asOwner();
+            profiler.begin("receiveAllBatch");
+            contract.receiveAllBatch(batchSize);
+            profiler.end();
+        }
+        for (int i = 0; i < ops; i++) {
+            Address user = PocmHarness.user(i % userCount);
+            profiler.begin("pendingToken");
+            contract.pendingToken(user);
+            profiler.end();
+            profiler.begin("stakersPage");
+            contract.stakersPage(-1, 20);
+            profiler.end();
+            profiler.begin("poolStats");
+            contract.poolStats();
+            profiler.end();
+            profiler.begin("consensusSummary");
+            contract.consensusSummary();
+            profiler.end();
+        }
+        if (harness.agentCount() > 0) {
+            for (int i = 0; i < 10; i++) {
+                LocalRuntime.nextBlock(1L);
+                harness.asOwner();
+                profiler.begin("consolidateConsensusDeposits");
+                contract.consolidateConsensusDeposits(10);
+                profiler.end();
+            }
+        }
+        // 全部退出和紧急退出会删除用户，放在最后，各取四分之一的用户
+        int exits = Math.min(ops, userCount / 4);
+        for (int i = 0; i < exits; i++) {
+            LocalRuntime.nextBlock(1L);
+            Address user = PocmHarness.user(i);
+            LocalRuntime.call(user, BigInteger.ZERO);
+            profiler.begin("quit");
+            contract.quit(null);
+            profiler.end();
+        }
+        for (int i = 0; i < exits; i++) {
+            LocalRuntime.nextBlock(1L);
+            Address user = PocmHarness.user(exits + i);
+            LocalRuntime.call(user, BigInteger.ZERO);
+            profiler.begin("emergencyWithdraw");
+            contract.emergencyWithdraw();
+            profiler.end();
+        }
+        if (harness.agentCount() > 1) {
+            LocalRuntime.nextBlock(1L);
+            harness.asOwner();
+            profiler.begin("removeAgent");
+            contract.removeAgent(PocmHarness.agentHash(0));
+            profiler.end();
+        }
+        LocalRuntime.setProfiler(null);
+    }
+}
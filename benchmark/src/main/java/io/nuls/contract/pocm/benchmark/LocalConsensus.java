@@ -0,0 +1,126 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.sdk.Block;
+import io.nuls.contract.sdk.LocalRuntime;
+import io.nuls.contract.sdk.Msg;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.nuls.contract.sdk.Utils.require;
+
+/**
+ * 共识模块外部命令的本地模拟：cs_getContractAgentInfo, cs_contractDeposit, cs_contractWithdraw
+ * <p>
+ * 委托时合约余额被锁定，退出委托时退回合约余额
+ */
+public class LocalConsensus implements LocalRuntime.ExternalCmdHandler {
+
+    private final Map<String, Agent> agents = new HashMap<String, Agent>();
+    private final Map<String, Join> joins = new HashMap<String, Join>();
+    // 退出委托时退回的金额，供基准测试按原金额重新委托
+    private final List<BigInteger> withdrawnAmounts = new ArrayList<BigInteger>();
+    private long txSequence;
+
+    public void registerAgent(String agentHash, String agentAddress, BigInteger deposit) {
+        Agent agent = new Agent();
+        agent.agentAddress = agentAddress;
+        agent.deposit = deposit;
+        agent.totalDeposit = BigInteger.ZERO;
+        agents.put(agentHash, agent);
+    }
+
+    /**
+     * 注销节点，节点上的委托在之后退出时直接退回
+     */
+    public void stopAgent(String agentHash) {
+        Agent agent = agents.get(agentHash);
+        agent.stopHeight = Block.number();
+        for (Map.Entry<String, Join> entry : joins.entrySet()) {
+            Join join = entry.getValue();
+            if (join.agentHash.equals(agentHash) && !join.returned) {
+                join.returned = true;
+                LocalRuntime.credit(Msg.address(), join.amount);
+            }
+        }
+        agent.totalDeposit = BigInteger.ZERO;
+    }
+
+    public int joinCount() {
+        return joins.size();
+    }
+
+    /**
+     * 取出上次调用以来退出委托退回的金额
+     */
+    public List<BigInteger> drainWithdrawnAmounts() {
+        List<BigInteger> list = new ArrayList<BigInteger>(withdrawnAmounts);
+        withdrawnAmounts.clear();
+        return list;
+    }
+
+    @Override
+    public Object invoke(String cmdName, String[] args) {
+        if ("cs_getContractAgentInfo".equals(cmdName)) {
+            Agent agent = agents.get(args[0]);
+            if (agent == null) {
+                return null;
+            }
+            return new String[]{
+                    agent.agentAddress, agent.agentAddress, agent.agentAddress,
+                    agent.deposit.toString(), agent.totalDeposit.toString(),
+                    "100", "0", "0", String.valueOf(agent.stopHeight)};
+        } else if ("cs_contractDeposit".equals(cmdName)) {
+            Agent agent = agents.get(args[0]);
+            require(agent != null && agent.stopHeight == -1L, "agent not exist");
+            BigInteger amount = new BigInteger(args[1]);
+            require(Msg.address().balance().compareTo(amount) >= 0, "deposit: insufficient balance");
+            LocalRuntime.credit(Msg.address(), amount.negate());
+            agent.totalDeposit = agent.totalDeposit.add(amount);
+            Join join = new Join();
+            join.agentHash = args[0];
+            join.amount = amount;
+            String txHash = nextTxHash();
+            joins.put(txHash, join);
+            return txHash;
+        } else if ("cs_contractWithdraw".equals(cmdName)) {
+            Join join = joins.remove(args[0]);
+            require(join != null, "join not exist");
+            if (!join.returned) {
+                LocalRuntime.credit(Msg.address(), join.amount);
+                Agent agent = agents.get(join.agentHash);
+                agent.totalDeposit = agent.totalDeposit.subtract(join.amount);
+                withdrawnAmounts.add(join.amount);
+            }
+            return nextTxHash();
+        }
+        require(false, "unknown cmd: " + cmdName);
+        return null;
+    }
+
+    private String nextTxHash() {
+        txSequence++;
+        String seq = Long.toHexString(txSequence);
+        StringBuilder sb = new StringBuilder("0020");
+        for (int i = seq.length(); i < 60; i++) {
+            sb.append('0');
+        }
+        return sb.append(seq).toString();
+    }
+
+    private static class Agent {
+        String agentAddress;
+        BigInteger deposit;
+        BigInteger totalDeposit;
+        long stopHeight = -1L;
+    }
+
+    private static class Join {
+        String agentHash;
+        BigInteger amount;
+        boolean returned;
+    }
+}
@@ -0,0 +1,62 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.LocalRuntime;
+import io.nuls.contract.sdk.Msg;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.nuls.contract.sdk.Utils.require;
+
+/**
+ * NRC20糖果合约的本地模拟，调用者为发起调用的合约地址(Msg.address())
+ */
+public class LocalNrc20Token implements LocalRuntime.ContractCallHandler {
+
+    private final Map<String, BigInteger> balances = new HashMap<String, BigInteger>();
+    private final Map<String, BigInteger> allowances = new HashMap<String, BigInteger>();
+
+    public void mint(Address to, BigInteger value) {
+        balances.put(to.toString(), balanceOf(to.toString()).add(value));
+    }
+
+    public BigInteger balanceOf(String owner) {
+        BigInteger balance = balances.get(owner);
+        return balance == null ? BigInteger.ZERO : balance;
+    }
+
+    @Override
+    public String call(Address contract, String methodName, String[][] args, BigInteger value) {
+        String caller = Msg.address().toString();
+        if ("balanceOf".equals(methodName)) {
+            return balanceOf(args[0][0]).toString();
+        } else if ("transfer".equals(methodName) || "transferLocked".equals(methodName)) {
+            move(caller, args[0][0], new BigInteger(args[1][0]));
+            return "true";
+        } else if ("approve".equals(methodName)) {
+            allowances.put(caller + "-" + args[0][0], new BigInteger(args[1][0]));
+            return "true";
+        } else if ("transferFrom".equals(methodName)) {
+            String key = args[0][0] + "-" + caller;
+            BigInteger amount = new BigInteger(args[2][0]);
+            BigInteger allowance = allowances.get(key);
+            require(allowance != null && allowance.compareTo(amount) >= 0, "nrc20: insufficient allowance");
+            allowances.put(key, allowance.subtract(amount));
+            move(args[0][0], args[1][0], amount);
+            return "true";
+        } else if ("decimals".equals(methodName)) {
+            return "8";
+        }
+        require(false, "nrc20: unknown method " + methodName);
+        return null;
+    }
+
+    private void move(String from, String to, BigInteger amount) {
+        BigInteger balance = balanceOf(from);
+        require(balance.compareTo(amount) >= 0, "nrc20: insufficient balance");
+        balances.put(from, balance.subtract(amount));
+        balances.put(to, balanceOf(to).add(amount));
+    }
+}
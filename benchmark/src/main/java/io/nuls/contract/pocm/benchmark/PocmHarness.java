@@ -0,0 +1,173 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.pocm.PocmContract;
+import io.nuls.contract.pocm.util.PocmUtil;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.LocalRuntime;
+
+import java.math.BigInteger;
+
+/**
+ * 在本地替身环境中部署POCM合约，并准备节点和质押用户
+ */
+public class PocmHarness {
+
+    public static final Address OWNER = new Address("tNULSeBaMnrs6JKrCy6TQdzYJZkMZJDng7QAsD");
+    public static final Address OFFICIAL = new Address("tNULSeBaMuU6sq72mptyghDXDWQXKJ5QUaWhGj");
+    public static final Address CONTRACT = new Address("tNULSeBaN7vAqBANTtVxsiFsam4NcRUbqrCpzK");
+    public static final Address CANDY_TOKEN = new Address("tNULSeBaN6pwyJ2aZPJZnGkv4qAbT4D5oiR3Vx");
+    public static final int CANDY_CHAIN_ID = 2;
+    public static final int CANDY_ASSET_ID = 1;
+    public static final BigInteger ONE_NULS = PocmUtil.ONE_NULS;
+    public static final BigInteger STAKE = ONE_NULS.multiply(BigInteger.valueOf(5000));
+    // LP模式下的奖励抽取比例(万分位)
+    public static final int LP_RATIO = 1000;
+
+    private final LocalConsensus consensus = new LocalConsensus();
+    private final LocalNrc20Token candyToken = new LocalNrc20Token();
+    private PocmContract contract;
+    private int userCount;
+    private int agentCount;
+    private LocalRuntime.EventListener eventListener;
+
+    /**
+     * 部署前设置事件监听，可记录合约创建事件
+     */
+    public PocmHarness eventListener(LocalRuntime.EventListener eventListener) {
+        this.eventListener = eventListener;
+        return this;
+    }
+
+    /**
+     * @param userCount  质押用户数量
+     * @param agentCount 委托节点数量，0代表不开启共识
+     */
+    public PocmHarness deploy(int userCount, int agentCount) {
+        return deploy(userCount, agentCount, false);
+    }
+
+    /**
+     * @param nrc20Candy 糖果是否为NRC20资产
+     */
+    public PocmHarness deploy(int userCount, int agentCount, boolean nrc20Candy) {
+        return deploy(userCount, agentCount, nrc20Candy, false);
+    }
+
+    /**
+     * @param lpMode 是否以LP模式运行，奖励按LP_RATIO抽取给LP合约
+     */
+    public PocmHarness deploy(int userCount, int agentCount, boolean nrc20Candy, boolean lpMode) {
+        LocalRuntime.reset();
+        LocalRuntime.setEventListener(eventListener);
+        LocalRuntime.setBlock(100L);
+        LocalRuntime.setContractAddress(CONTRACT);
+        LocalRuntime.setExternalCmdHandler(consensus);
+        BigInteger candy = ONE_NULS.multiply(BigInteger.valueOf(1000000000L)).multiply(ONE_NULS);
+        if (nrc20Candy) {
+            LocalRuntime.registerContract(CANDY_TOKEN, candyToken);
+            candyToken.mint(CONTRACT, candy);
+        } else {
+            LocalRuntime.credit(CONTRACT, candy, CANDY_CHAIN_ID, CANDY_ASSET_ID);
+        }
+
+        LocalRuntime.call(OWNER, BigInteger.ZERO);
+        contract = new PocmContract(nrc20Candy ? CANDY_TOKEN : null,
+                nrc20Candy ? 0 : CANDY_CHAIN_ID, nrc20Candy ? 0 : CANDY_ASSET_ID,
+                ONE_NULS, ONE_NULS.multiply(BigInteger.valueOf(100000000L)), 0,
+                ONE_NULS, ONE_NULS.multiply(BigInteger.valueOf(100000000L)),
+                agentCount > 0, false, "benchmark",
+                lpMode ? PocmUtil.LP_MODE : PocmUtil.NORMAL_MODE, lpMode ? LP_RATIO : 0);
+        // 触发糖果分配检查
+        LocalRuntime.call(OWNER, BigInteger.ZERO);
+        contract.updateTotalAllocation();
+
+        for (int i = 0; i < agentCount; i++) {
+            String agentHash = agentHash(i);
+            consensus.registerAgent(agentHash, agentAddress(i).toString(), ONE_NULS.multiply(BigInteger.valueOf(20000)));
+            LocalRuntime.call(OWNER, BigInteger.ZERO);
+            contract.addOtherAgent(agentHash);
+        }
+        for (int i = 0; i < userCount; i++) {
+            deposit(user(i), STAKE);
+        }
+        this.userCount = userCount;
+        this.agentCount = agentCount;
+        LocalRuntime.nextBlock(1L);
+        LocalRuntime.getCounters().clear();
+        return this;
+    }
+
+    public void deposit(Address user, BigInteger amount) {
+        LocalRuntime.call(user, amount);
+        contract.depositForOwn();
+    }
+
+    public void withdraw(Address user, BigInteger amount) {
+        LocalRuntime.call(user, BigInteger.ZERO);
+        contract.withdraw(amount);
+    }
+
+    public void receiveAwards(Address user) {
+        LocalRuntime.call(user, BigInteger.ZERO);
+        contract.receiveAwardsByAddress(user);
+    }
+
+    public void depositForMany(Address payer, String[] addresses, BigInteger[] amounts) {
+        BigInteger total = BigInteger.ZERO;
+        for (BigInteger amount : amounts) {
+            total = total.add(amount);
+        }
+        LocalRuntime.call(payer, total);
+        contract.depositForMany(addresses, amounts);
+    }
+
+    public void multicall(Address user, BigInteger value, String... operations) {
+        LocalRuntime.call(user, value);
+        contract.multicall(operations);
+    }
+
+    public void asOwner() {
+        LocalRuntime.call(OWNER, BigInteger.ZERO);
+    }
+
+    public void asOfficial() {
+        LocalRuntime.call(OFFICIAL, BigInteger.ZERO);
+    }
+
+    public PocmContract contract() {
+        return contract;
+    }
+
+    public LocalNrc20Token candyToken() {
+        return candyToken;
+    }
+
+    public LocalConsensus consensus() {
+        return consensus;
+    }
+
+    public int userCount() {
+        return userCount;
+    }
+
+    public int agentCount() {
+        return agentCount;
+    }
+
+    public static Address user(int i) {
+        return new Address("tNULSeBaUser" + i);
+    }
+
+    public static Address agentAddress(int i) {
+        return new Address("tNULSeBaAgent" + i);
+    }
+
+    public static String agentHash(int i) {
+        String seq = Integer.toHexString(i + 1);
+        StringBuilder sb = new StringBuilder("00aa");
+        for (int j = seq.length(); j < 60; j++) {
+            sb.append('0');
+        }
+        return sb.append(seq).toString();
+    }
+}
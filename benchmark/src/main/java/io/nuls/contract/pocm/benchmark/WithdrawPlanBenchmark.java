@@ -0,0 +1,124 @@
+package io.nuls.contract.pocm.benchmark;
+
+import io.nuls.contract.pocm.manager.ConsensusManager;
+import io.nuls.contract.pocm.manager.PocmInfo;
+import io.nuls.contract.pocm.manager.UserInfoManager;
+import io.nuls.contract.pocm.manager.deposit.DepositOthersManager;
+import io.nuls.contract.pocm.model.ConsensusAgentDepositInfo;
+import io.nuls.contract.pocm.util.PocmUtil;
+import io.nuls.contract.sdk.LocalRuntime;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DepositOthersManager.withdrawInner的基准测试，对比逐笔选择委托(withdrawPolicy=0)和按计划选择委托(withdrawPolicy=1)
+ * <p>
+ * 预先委托depositEntries笔金额随机的委托，每次操作退出约withdrawSpan笔委托的金额，再把退回的金额按原金额逐笔委托回去，
+ * 使委托列表保持稳定。结束时输出平均每次退出的cs_contractWithdraw次数和多退出的闲置金额
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WithdrawPlanBenchmark {
+
+    public static final BigInteger MIN_JOIN_DEPOSIT = PocmHarness.ONE_NULS.multiply(BigInteger.valueOf(2000));
+    public static final int AGENT_COUNT = 16;
+    // 委托金额在2000到12000 NULS之间
+    public static final int DEPOSIT_RANGE = 10000;
+
+    @Param({"10", "100", "500"})
+    public int depositEntries;
+
+    @Param({"1", "4"})
+    public int withdrawSpan;
+
+    @Param({"0", "1"})
+    public int withdrawPolicy;
+
+    private ConsensusManager consensusManager;
+    private DepositOthersManager depositOthersManager;
+    private LocalConsensus consensus;
+    private Random random;
+
+    private long withdrawCount;
+    private long withdrawCmds;
+    private BigInteger surplus;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PocmHarness harness = new PocmHarness().deploy(0, 0);
+        consensus = harness.consensus();
+        harness.asOwner();
+        consensusManager = new ConsensusManager(new UserInfoManager(), new HashMap<String, ConsensusAgentDepositInfo>(),
+                harness.contract(), new PocmInfo());
+        depositOthersManager = new DepositOthersManager();
+        depositOthersManager.modifyMinJoinDeposit(MIN_JOIN_DEPOSIT);
+        // 每笔委托都完整地落在一个节点上
+        depositOthersManager.modifyDepositPolicy(PocmUtil.DEPOSIT_POLICY_FILL_FIRST);
+        depositOthersManager.modifyWithdrawPolicy(withdrawPolicy);
+        for (int i = 0; i < AGENT_COUNT; i++) {
+            String agentHash = PocmHarness.agentHash(i);
+            consensus.registerAgent(agentHash, PocmHarness.agentAddress(i).toString(), MIN_JOIN_DEPOSIT.multiply(BigInteger.TEN));
+            depositOthersManager.addOtherAgent(agentHash);
+        }
+        // 两种策略使用相同的委托和退出金额
+        random = new Random(depositEntries * 31L + withdrawSpan);
+        for (int i = 0; i < depositEntries; i++) {
+            this.depositOne(MIN_JOIN_DEPOSIT.add(PocmHarness.ONE_NULS.multiply(BigInteger.valueOf(random.nextInt(DEPOSIT_RANGE)))));
+        }
+        consensus.drainWithdrawnAmounts();
+        LocalRuntime.getCounters().clear();
+        withdrawCount = 0;
+        withdrawCmds = 0;
+        surplus = BigInteger.ZERO;
+    }
+
+    private void depositOne(BigInteger amount) {
+        LocalRuntime.credit(PocmHarness.CONTRACT, amount);
+        consensusManager.addAvailableAmount(amount);
+        depositOthersManager.deposit(amount, consensusManager);
+    }
+
+    @Benchmark
+    public void withdrawAndRestore() {
+        // 平均每笔委托约7000 NULS
+        long nuls = (long) withdrawSpan * 7000L - 3500L + random.nextInt(7000);
+        BigInteger amount = PocmHarness.ONE_NULS.multiply(BigInteger.valueOf(nuls));
+        LocalRuntime.getCounters().clear();
+        depositOthersManager.withdrawInner(amount, consensusManager);
+        Long cmds = LocalRuntime.getCounters().byName.get("cs_contractWithdraw");
+        List<BigInteger> withdrawn = consensus.drainWithdrawnAmounts();
+        BigInteger total = BigInteger.ZERO;
+        for (BigInteger value : withdrawn) {
+            total = total.add(value);
+        }
+        withdrawCount++;
+        withdrawCmds += cmds == null ? 0 : cmds;
+        surplus = surplus.add(total.subtract(amount).max(BigInteger.ZERO));
+        // 退回的金额从闲置金额中取出，再按原金额逐笔委托回去
+        consensusManager.subAvailableAmount(total);
+        LocalRuntime.credit(PocmHarness.CONTRACT, total.negate());
+        for (BigInteger value : withdrawn) {
+            this.depositOne(value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (withdrawCount == 0) {
+            return;
+        }
+        System.out.println(String.format("withdrawPolicy=%d depositEntries=%d withdrawSpan=%d: cs_contractWithdraw/op=%.3f surplusNuls/op=%.1f",
+                withdrawPolicy, depositEntries, withdrawSpan,
+                (double) withdrawCmds / withdrawCount,
+                PocmUtil.toNuls(surplus).doubleValue() / withdrawCount));
+    }
+}
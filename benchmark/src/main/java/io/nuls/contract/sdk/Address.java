@@ -0,0 +1,129 @@
+package io.nuls.contract.sdk;
+
+import java.math.BigInteger;
+
+/**
+ * 本地替身：账户/合约地址，余额保存在{@link LocalRuntime}中，转账和合约调用都会被计数
+ */
+public class Address {
+
+    private final String address;
+
+    public Address(String address) {
+        if (address == null || address.length() == 0) {
+            throw new IllegalArgumentException("empty address");
+        }
+        // 真实SDK按base58和校验和校验地址，替身只拒绝非字母数字的字符
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                throw new IllegalArgumentException("address not good: " + address);
+            }
+        }
+        this.address = address;
+    }
+
+    public BigInteger balance() {
+        return LocalRuntime.balanceOf(this, LocalRuntime.MAIN_CHAIN_ID, LocalRuntime.MAIN_ASSET_ID);
+    }
+
+    public BigInteger totalBalance() {
+        return balance();
+    }
+
+    public BigInteger balance(int assetChainId, int assetId) {
+        return LocalRuntime.balanceOf(this, assetChainId, assetId);
+    }
+
+    public void transfer(BigInteger value) {
+        transfer(value, LocalRuntime.MAIN_CHAIN_ID, LocalRuntime.MAIN_ASSET_ID);
+    }
+
+    public void transfer(BigInteger value, int assetChainId, int assetId) {
+        LocalRuntime.counters.transfers++;
+        LocalProfiler profiler = LocalRuntime.profiler;
+        long start = profiler == null ? 0L : System.nanoTime();
+        LocalRuntime.move(Msg.address(), this, value, assetChainId, assetId);
+        if (profiler != null) {
+            profiler.record("transfer", start);
+        }
+    }
+
+    public void transferLocked(BigInteger value, long lockedTime) {
+        transferLocked(value, LocalRuntime.MAIN_CHAIN_ID, LocalRuntime.MAIN_ASSET_ID, lockedTime);
+    }
+
+    public void transferLocked(BigInteger value, int assetChainId, int assetId, long lockedTime) {
+        LocalRuntime.counters.lockedTransfers++;
+        LocalProfiler profiler = LocalRuntime.profiler;
+        long start = profiler == null ? 0L : System.nanoTime();
+        LocalRuntime.move(Msg.address(), this, value, assetChainId, assetId);
+        if (profiler != null) {
+            profiler.record("transferLocked", start);
+        }
+    }
+
+    public void call(String methodName, String methodDesc, String[][] args, BigInteger value) {
+        callWithReturnValue(methodName, methodDesc, args, value, null);
+    }
+
+    public void call(String methodName, String methodDesc, String[][] args, BigInteger value, MultyAssetValue[] multyAssetValues) {
+        callWithReturnValue(methodName, methodDesc, args, value, multyAssetValues);
+    }
+
+    public String callWithReturnValue(String methodName, String methodDesc, String[][] args, BigInteger value) {
+        return callWithReturnValue(methodName, methodDesc, args, value, null);
+    }
+
+    public String callWithReturnValue(String methodName, String methodDesc, String[][] args, BigInteger value, MultyAssetValue[] multyAssetValues) {
+        LocalRuntime.counters.contractCall(methodName);
+        LocalProfiler profiler = LocalRuntime.profiler;
+        long start = profiler == null ? 0L : System.nanoTime();
+        String result = callHandler(methodName, args, value, multyAssetValues);
+        if (profiler != null) {
+            profiler.record("call:" + methodName, start);
+        }
+        return result;
+    }
+
+    private String callHandler(String methodName, String[][] args, BigInteger value, MultyAssetValue[] multyAssetValues) {
+        if (value != null && value.signum() > 0) {
+            LocalRuntime.move(Msg.address(), this, value, LocalRuntime.MAIN_CHAIN_ID, LocalRuntime.MAIN_ASSET_ID);
+        }
+        if (multyAssetValues != null) {
+            for (MultyAssetValue asset : multyAssetValues) {
+                LocalRuntime.move(Msg.address(), this, asset.getValue(), asset.getAssetChainId(), asset.getAssetId());
+            }
+        }
+        LocalRuntime.ContractCallHandler handler = LocalRuntime.contractHandler(this);
+        if (handler == null) {
+            return null;
+        }
+        return handler.call(this, methodName, args, value);
+    }
+
+    public boolean isContract() {
+        return LocalRuntime.contractHandlers.containsKey(address);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return address.equals(((Address) o).address);
+    }
+
+    @Override
+    public int hashCode() {
+        return address.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return address;
+    }
+}
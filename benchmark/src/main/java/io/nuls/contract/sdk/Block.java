@@ -0,0 +1,18 @@
+package io.nuls.contract.sdk;
+
+/**
+ * 本地替身：区块信息，由{@link LocalRuntime}控制
+ */
+public class Block {
+
+    private Block() {
+    }
+
+    public static long number() {
+        return LocalRuntime.blockNumber;
+    }
+
+    public static long timestamp() {
+        return LocalRuntime.blockTimestamp;
+    }
+}
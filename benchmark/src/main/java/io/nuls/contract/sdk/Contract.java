@@ -0,0 +1,13 @@
+package io.nuls.contract.sdk;
+
+/**
+ * 本地替身：合约入口接口
+ */
+public interface Contract {
+
+    void _payable();
+
+    void _payable(String[][] args);
+
+    void _payableMultyAsset();
+}
@@ -0,0 +1,7 @@
+package io.nuls.contract.sdk;
+
+/**
+ * 本地替身：合约事件标记接口
+ */
+public interface Event {
+}
@@ -0,0 +1,287 @@
+package io.nuls.contract.sdk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 本地替身的性能剖析，通过{@link LocalRuntime#setProfiler}开启，默认关闭
+ * <p>
+ * 按合约入口方法分组统计：
+ * <ul>
+ * <li>入口的调用次数和耗时，由{@link #begin}/{@link #end}标记；未标记时以调用栈最外层的PocmContract方法作为入口</li>
+ * <li>SDK操作的次数和耗时：外部命令(cmd:)、转账(transfer/transferLocked)、合约调用(call:)、事件(emit:)</li>
+ * <li>定时采样调用线程的调用栈，得到合约代码中各方法(管理器、资产包装类等)的耗时占比，
+ * incl为方法在栈上的占比，self为方法自身(含JDK调用)的占比，SDK操作内的耗时归入sdk:帧；只在标记的入口内采样</li>
+ * </ul>
+ * 替身不做gas计量，耗时和次数只作为gas的近似，用于不同合约版本之间的对比
+ */
+public class LocalProfiler {
+
+    private static final String CONTRACT_PACKAGE = "io.nuls.contract.pocm.";
+    private static final String BENCHMARK_PACKAGE = "io.nuls.contract.pocm.benchmark.";
+    private static final String SDK_PACKAGE = "io.nuls.contract.sdk.";
+    private static final String CONTRACT_CLASS = "io.nuls.contract.pocm.PocmContract";
+    private static final String UNKNOWN_ENTRY = "(unknown)";
+
+    private final Map<String, EntryProfile> entries = new HashMap<String, EntryProfile>();
+    private final Thread target;
+    private final long sampleIntervalNanos;
+    private volatile String current;
+    private long currentStart;
+    private volatile boolean sampling;
+    private Thread sampler;
+
+    /**
+     * @param sampleIntervalMicros 调用栈采样间隔(微秒)，0代表不采样
+     */
+    public LocalProfiler(long sampleIntervalMicros) {
+        this.target = Thread.currentThread();
+        this.sampleIntervalNanos = sampleIntervalMicros * 1000L;
+    }
+
+    /**
+     * 开始采样，只采样创建本对象的线程
+     */
+    public LocalProfiler start() {
+        if (sampleIntervalNanos <= 0 || sampler != null) {
+            return this;
+        }
+        sampling = true;
+        sampler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (sampling) {
+                    LockSupport.parkNanos(sampleIntervalNanos);
+                    sample();
+                }
+            }
+        }, "pocm-profiler");
+        sampler.setDaemon(true);
+        sampler.start();
+        return this;
+    }
+
+    public void stop() {
+        sampling = false;
+        if (sampler != null) {
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sampler = null;
+        }
+    }
+
+    /**
+     * 标记一次入口调用的开始，同一时间只有一个入口
+     */
+    public void begin(String entryPoint) {
+        current = entryPoint;
+        currentStart = System.nanoTime();
+    }
+
+    public void end() {
+        String entryPoint = current;
+        if (entryPoint == null) {
+            return;
+        }
+        long elapsed = System.nanoTime() - currentStart;
+        current = null;
+        synchronized (this) {
+            EntryProfile entry = entry(entryPoint);
+            entry.calls++;
+            entry.nanos += elapsed;
+        }
+    }
+
+    /**
+     * 记录一次SDK操作
+     *
+     * @param start 操作开始时的System.nanoTime()
+     */
+    void record(String operation, long start) {
+        long elapsed = System.nanoTime() - start;
+        String entryPoint = current;
+        if (entryPoint == null) {
+            entryPoint = outermostEntry(Thread.currentThread().getStackTrace());
+        }
+        synchronized (this) {
+            Counter counter = counter(entry(entryPoint).operations, operation);
+            counter.count++;
+            counter.nanos += elapsed;
+        }
+    }
+
+    private void sample() {
+        String entryPoint = current;
+        if (entryPoint == null) {
+            return;
+        }
+        StackTraceElement[] stack = target.getStackTrace();
+        // 取栈期间入口已结束或切换，丢弃本次采样
+        if (entryPoint != current || stack.length == 0) {
+            return;
+        }
+        String self = null;
+        Set<String> frames = new HashSet<String>();
+        for (StackTraceElement element : stack) {
+            String frame = frameName(element);
+            if (frame == null) {
+                continue;
+            }
+            if (self == null) {
+                self = frame;
+            }
+            frames.add(frame);
+        }
+        if (self == null) {
+            return;
+        }
+        synchronized (this) {
+            EntryProfile entry = entry(entryPoint);
+            entry.samples++;
+            for (String frame : frames) {
+                counter(entry.frames, frame).count++;
+            }
+            counter(entry.frames, self).self++;
+        }
+    }
+
+    /**
+     * 合约代码和SDK替身的帧，其他帧(JDK、benchmark模块的模拟实现)归入调用它的帧
+     */
+    private static String frameName(StackTraceElement element) {
+        String className = element.getClassName();
+        if (className.startsWith(SDK_PACKAGE)) {
+            if (className.equals(LocalProfiler.class.getName())) {
+                return null;
+            }
+            return "sdk:" + simpleName(className) + '.' + element.getMethodName();
+        }
+        if (className.startsWith(CONTRACT_PACKAGE) && !className.startsWith(BENCHMARK_PACKAGE)) {
+            return simpleName(className) + '.' + element.getMethodName();
+        }
+        return null;
+    }
+
+    private static String outermostEntry(StackTraceElement[] stack) {
+        for (int i = stack.length - 1; i >= 0; i--) {
+            if (CONTRACT_CLASS.equals(stack[i].getClassName()) && !"<init>".equals(stack[i].getMethodName())) {
+                return stack[i].getMethodName();
+            }
+        }
+        return UNKNOWN_ENTRY;
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private EntryProfile entry(String entryPoint) {
+        EntryProfile entry = entries.get(entryPoint);
+        if (entry == null) {
+            entry = new EntryProfile(entryPoint);
+            entries.put(entryPoint, entry);
+        }
+        return entry;
+    }
+
+    private static Counter counter(Map<String, Counter> counters, String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter(name);
+            counters.put(name, counter);
+        }
+        return counter;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 按入口耗时降序输出报告
+     *
+     * @param maxFrames 每个入口输出的采样帧数量上限
+     */
+    public synchronized String report(int maxFrames) {
+        List<EntryProfile> list = new ArrayList<EntryProfile>(entries.values());
+        Collections.sort(list, new Comparator<EntryProfile>() {
+            @Override
+            public int compare(EntryProfile o1, EntryProfile o2) {
+                return o1.nanos != o2.nanos ? (o1.nanos > o2.nanos ? -1 : 1) : o1.name.compareTo(o2.name);
+            }
+        });
+        StringBuilder sb = new StringBuilder();
+        for (EntryProfile entry : list) {
+            long calls = Math.max(entry.calls, 1L);
+            sb.append(String.format("%-32s calls=%d total=%.3fms avg=%.2fus samples=%d%n",
+                    entry.name, entry.calls, entry.nanos / 1e6, entry.nanos / 1e3 / calls, entry.samples));
+            List<Counter> operations = sorted(entry.operations, true);
+            if (!operations.isEmpty()) {
+                sb.append(String.format("    %-44s %10s %10s %8s%n", "operation", "count/call", "avg us", "time%"));
+                for (Counter operation : operations) {
+                    sb.append(String.format("    %-44s %10.3f %10.2f %7.1f%%%n", operation.name,
+                            (double) operation.count / calls, operation.nanos / 1e3 / operation.count,
+                            entry.nanos == 0 ? 0.0 : 100.0 * operation.nanos / entry.nanos));
+                }
+            }
+            List<Counter> frames = sorted(entry.frames, false);
+            if (!frames.isEmpty()) {
+                sb.append(String.format("    %-44s %10s %10s%n", "sampled frame", "incl%", "self%"));
+                for (int i = 0; i < frames.size() && i < maxFrames; i++) {
+                    Counter frame = frames.get(i);
+                    sb.append(String.format("    %-44s %9.1f%% %9.1f%%%n", frame.name,
+                            100.0 * frame.count / entry.samples, 100.0 * frame.self / entry.samples));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<Counter> sorted(Map<String, Counter> counters, final boolean byNanos) {
+        List<Counter> list = new ArrayList<Counter>(counters.values());
+        Collections.sort(list, new Comparator<Counter>() {
+            @Override
+            public int compare(Counter o1, Counter o2) {
+                long v1 = byNanos ? o1.nanos : o1.count;
+                long v2 = byNanos ? o2.nanos : o2.count;
+                return v1 != v2 ? (v1 > v2 ? -1 : 1) : o1.name.compareTo(o2.name);
+            }
+        });
+        return list;
+    }
+
+    private static class EntryProfile {
+        private final String name;
+        private long calls;
+        private long nanos;
+        private long samples;
+        private final Map<String, Counter> operations = new HashMap<String, Counter>();
+        private final Map<String, Counter> frames = new HashMap<String, Counter>();
+
+        EntryProfile(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Counter {
+        private final String name;
+        private long count;
+        private long nanos;
+        // 采样帧位于栈顶的次数
+        private long self;
+
+        Counter(String name) {
+            this.name = name;
+        }
+    }
+}
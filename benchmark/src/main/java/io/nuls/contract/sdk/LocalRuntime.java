@@ -0,0 +1,235 @@
+package io.nuls.contract.sdk;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 合约SDK的本地替身运行环境，只用于在链下测量合约代码
+ * <p>
+ * 保存区块高度、调用上下文、各地址的资产余额，并统计外部命令、转账、合约调用和事件的次数。
+ * 设置{@link LocalProfiler}后，还会按入口方法统计这些操作的耗时。
+ * 不做gas计量，也不会在revert时回滚状态。
+ */
+public class LocalRuntime {
+
+    public static final int MAIN_CHAIN_ID = 1;
+    public static final int MAIN_ASSET_ID = 1;
+    // 区块间隔10秒
+    public static final long BLOCK_INTERVAL = 10L;
+
+    static long blockNumber;
+    static long blockTimestamp;
+    static Address sender;
+    static Address contractAddress;
+    static BigInteger value = BigInteger.ZERO;
+    static MultyAssetValue[] multyAssetValues;
+    static long gasLeft = Long.MAX_VALUE;
+
+    static final Map<String, BigInteger> balances = new HashMap<String, BigInteger>();
+    static final Map<String, ContractCallHandler> contractHandlers = new HashMap<String, ContractCallHandler>();
+    static ExternalCmdHandler externalCmdHandler;
+    static EventListener eventListener;
+    static Counters counters = new Counters();
+    static LocalProfiler profiler;
+
+    private LocalRuntime() {
+    }
+
+    /**
+     * 清空所有状态
+     */
+    public static void reset() {
+        blockNumber = 0L;
+        blockTimestamp = 0L;
+        sender = null;
+        contractAddress = null;
+        value = BigInteger.ZERO;
+        multyAssetValues = null;
+        gasLeft = Long.MAX_VALUE;
+        balances.clear();
+        contractHandlers.clear();
+        externalCmdHandler = null;
+        eventListener = null;
+        counters = new Counters();
+        profiler = null;
+    }
+
+    public static void setBlock(long number) {
+        blockNumber = number;
+        blockTimestamp = number * BLOCK_INTERVAL;
+    }
+
+    public static long nextBlock(long count) {
+        setBlock(blockNumber + count);
+        return blockNumber;
+    }
+
+    public static long getBlockNumber() {
+        return blockNumber;
+    }
+
+    public static void setContractAddress(Address address) {
+        contractAddress = address;
+    }
+
+    /**
+     * 设置下一次调用的上下文，附带的NULS会先转入合约地址
+     */
+    public static void call(Address from, BigInteger attached) {
+        sender = from;
+        value = attached == null ? BigInteger.ZERO : attached;
+        multyAssetValues = null;
+        if (value.signum() > 0) {
+            credit(contractAddress, value);
+        }
+    }
+
+    public static void callWithAssets(Address from, MultyAssetValue[] assets) {
+        call(from, BigInteger.ZERO);
+        multyAssetValues = assets;
+        if (assets != null) {
+            for (MultyAssetValue asset : assets) {
+                credit(contractAddress, asset.getValue(), asset.getAssetChainId(), asset.getAssetId());
+            }
+        }
+    }
+
+    public static void setGasLeft(long gas) {
+        gasLeft = gas;
+    }
+
+    public static void credit(Address address, BigInteger amount) {
+        credit(address, amount, MAIN_CHAIN_ID, MAIN_ASSET_ID);
+    }
+
+    public static void credit(Address address, BigInteger amount, int assetChainId, int assetId) {
+        String key = key(address, assetChainId, assetId);
+        BigInteger balance = balances.get(key);
+        balances.put(key, balance == null ? amount : balance.add(amount));
+    }
+
+    public static void registerContract(Address address, ContractCallHandler handler) {
+        contractHandlers.put(address.toString(), handler);
+    }
+
+    public static void setExternalCmdHandler(ExternalCmdHandler handler) {
+        externalCmdHandler = handler;
+    }
+
+    public static void setEventListener(EventListener listener) {
+        eventListener = listener;
+    }
+
+    /**
+     * 开启性能剖析，null代表关闭
+     */
+    public static void setProfiler(LocalProfiler localProfiler) {
+        profiler = localProfiler;
+    }
+
+    public static LocalProfiler getProfiler() {
+        return profiler;
+    }
+
+    public static Counters getCounters() {
+        return counters;
+    }
+
+    static ContractCallHandler contractHandler(Address address) {
+        return contractHandlers.get(address.toString());
+    }
+
+    static BigInteger balanceOf(Address address, int assetChainId, int assetId) {
+        BigInteger balance = balances.get(key(address, assetChainId, assetId));
+        return balance == null ? BigInteger.ZERO : balance;
+    }
+
+    static void move(Address from, Address to, BigInteger amount, int assetChainId, int assetId) {
+        BigInteger balance = balanceOf(from, assetChainId, assetId);
+        Utils.require(amount.signum() >= 0, "transfer: negative amount");
+        Utils.require(balance.compareTo(amount) >= 0, "transfer: insufficient balance of " + from);
+        balances.put(key(from, assetChainId, assetId), balance.subtract(amount));
+        credit(to, amount, assetChainId, assetId);
+    }
+
+    private static String key(Address address, int assetChainId, int assetId) {
+        return address.toString() + '-' + assetChainId + '-' + assetId;
+    }
+
+    /**
+     * 共识等外部命令的模拟实现
+     */
+    public interface ExternalCmdHandler {
+        Object invoke(String cmdName, String[] args);
+    }
+
+    /**
+     * 被调用合约的模拟实现，例如NRC20糖果
+     */
+    public interface ContractCallHandler {
+        String call(Address contract, String methodName, String[][] args, BigInteger value);
+    }
+
+    public interface EventListener {
+        void onEvent(Event event);
+    }
+
+    /**
+     * revert在本地替身中以异常的形式抛出
+     */
+    public static class RevertException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public RevertException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 调用计数
+     */
+    public static class Counters {
+        public long externalCmds;
+        public long transfers;
+        public long lockedTransfers;
+        public long contractCalls;
+        public long events;
+        public final Map<String, Long> byName = new HashMap<String, Long>();
+
+        void externalCmd(String cmdName) {
+            externalCmds++;
+            increase(cmdName);
+        }
+
+        void contractCall(String methodName) {
+            contractCalls++;
+            increase("call:" + methodName);
+        }
+
+        private void increase(String name) {
+            Long count = byName.get(name);
+            byName.put(name, count == null ? 1L : count + 1L);
+        }
+
+        public long get(String name) {
+            Long count = byName.get(name);
+            return count == null ? 0L : count;
+        }
+
+        public void clear() {
+            externalCmds = 0L;
+            transfers = 0L;
+            lockedTransfers = 0L;
+            contractCalls = 0L;
+            events = 0L;
+            byName.clear();
+        }
+
+        @Override
+        public String toString() {
+            return "externalCmds=" + externalCmds + ", transfers=" + transfers + ", lockedTransfers=" + lockedTransfers
+                    + ", contractCalls=" + contractCalls + ", events=" + events + ", detail=" + byName;
+        }
+    }
+}
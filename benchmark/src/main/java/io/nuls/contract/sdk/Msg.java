@@ -0,0 +1,36 @@
+package io.nuls.contract.sdk;
+
+import java.math.BigInteger;
+
+/**
+ * 本地替身：当前调用的消息上下文，由{@link LocalRuntime}控制
+ */
+public class Msg {
+
+    private Msg() {
+    }
+
+    public static long gasleft() {
+        return LocalRuntime.gasLeft;
+    }
+
+    public static Address sender() {
+        return LocalRuntime.sender;
+    }
+
+    public static BigInteger value() {
+        return LocalRuntime.value;
+    }
+
+    public static MultyAssetValue[] multyAssetValues() {
+        return LocalRuntime.multyAssetValues;
+    }
+
+    public static long gasprice() {
+        return 25L;
+    }
+
+    public static Address address() {
+        return LocalRuntime.contractAddress;
+    }
+}
@@ -0,0 +1,30 @@
+package io.nuls.contract.sdk;
+
+import java.math.BigInteger;
+
+/**
+ * 本地替身：多资产转账金额
+ */
+public class MultyAssetValue {
+    private BigInteger value;
+    private int assetChainId;
+    private int assetId;
+
+    public MultyAssetValue(BigInteger value, int assetChainId, int assetId) {
+        this.value = value;
+        this.assetChainId = assetChainId;
+        this.assetId = assetId;
+    }
+
+    public BigInteger getValue() {
+        return value;
+    }
+
+    public int getAssetChainId() {
+        return assetChainId;
+    }
+
+    public int getAssetId() {
+        return assetId;
+    }
+}
@@ -0,0 +1,54 @@
+package io.nuls.contract.sdk;
+
+/**
+ * 本地替身：合约工具方法，外部命令和事件都会被计数，开启剖析时还会计时
+ */
+public class Utils {
+
+    private Utils() {
+    }
+
+    public static void revert() {
+        revert(null);
+    }
+
+    public static void revert(String errorMessage) {
+        throw new LocalRuntime.RevertException(errorMessage);
+    }
+
+    public static void require(boolean expression) {
+        if (!expression) {
+            revert();
+        }
+    }
+
+    public static void require(boolean expression, String errorMessage) {
+        if (!expression) {
+            revert(errorMessage);
+        }
+    }
+
+    public static void emit(Event event) {
+        LocalRuntime.counters.events++;
+        LocalProfiler profiler = LocalRuntime.profiler;
+        long start = profiler == null ? 0L : System.nanoTime();
+        if (LocalRuntime.eventListener != null) {
+            LocalRuntime.eventListener.onEvent(event);
+        }
+        if (profiler != null) {
+            profiler.record("emit:" + event.getClass().getSimpleName(), start);
+        }
+    }
+
+    public static Object invokeExternalCmd(String cmdName, String[] args) {
+        LocalRuntime.counters.externalCmd(cmdName);
+        require(LocalRuntime.externalCmdHandler != null, "no handler for external cmd: " + cmdName);
+        LocalProfiler profiler = LocalRuntime.profiler;
+        long start = profiler == null ? 0L : System.nanoTime();
+        Object result = LocalRuntime.externalCmdHandler.invoke(cmdName, args);
+        if (profiler != null) {
+            profiler.record("cmd:" + cmdName, start);
+        }
+        return result;
+    }
+}
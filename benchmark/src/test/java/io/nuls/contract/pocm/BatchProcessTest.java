@@ -0,0 +1,130 @@
+package io.nuls.contract.pocm;
+
+import io.nuls.contract.pocm.benchmark.PocmHarness;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.LocalRuntime;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_ASSET_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_CHAIN_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.STAKE;
+import static io.nuls.contract.pocm.util.PocmUtil.BATCH_RECEIVE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 分批处理所有用户: 剩余gas不足时每次调用只处理一个用户，游标跨调用推进，
+ * 处理过程中删除用户、新增用户时每个用户在一轮中只处理一次
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class BatchProcessTest {
+
+    private static final int USERS = 25;
+
+    @Test
+    public void receiveAllBatchResumesUnderLowGas() {
+        PocmHarness harness = new PocmHarness().deploy(USERS, 0);
+        LocalRuntime.nextBlock(50);
+        BigInteger[] pending = new BigInteger[USERS];
+        for (int i = 0; i < USERS; i++) {
+            pending[i] = new BigInteger(harness.contract().pendingToken(PocmHarness.user(i)));
+            assertTrue(pending[i].signum() > 0);
+        }
+
+        // 剩余gas低于保留值，每次调用只处理一个用户
+        LocalRuntime.setGasLeft(0L);
+        int calls = 0;
+        int remaining;
+        do {
+            LocalRuntime.call(PocmHarness.user(0), BigInteger.ZERO);
+            remaining = harness.contract().receiveAllBatch(USERS);
+            calls++;
+            assertEquals(USERS - calls, remaining);
+            String progress = harness.contract().batchProgress(BATCH_RECEIVE);
+            assertTrue(progress, progress.contains("\"processed\":" + calls));
+            assertTrue(progress, progress.contains("\"done\":" + (remaining == 0)));
+        } while (remaining > 0);
+        assertEquals(USERS, calls);
+
+        // 同一区块内处理，每个用户恰好收到调用前的待领取奖励
+        for (int i = 0; i < USERS; i++) {
+            Address user = PocmHarness.user(i);
+            assertEquals("user" + i, pending[i], user.balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+            assertEquals("0", harness.contract().pendingToken(user));
+        }
+    }
+
+    @Test
+    public void quitAllBatchRemovesUsersAcrossCalls() {
+        PocmHarness harness = new PocmHarness().deploy(USERS, 0);
+        LocalRuntime.nextBlock(10);
+        LocalRuntime.setGasLeft(0L);
+        for (int call = 1; call <= USERS; call++) {
+            harness.asOwner();
+            assertEquals(USERS - call, harness.contract().quitAllBatch(USERS));
+            // 删除用户时末尾的用户补位，已处理的用户不会再次出现
+            assertEquals(USERS - call, harness.contract().totalDepositAddressCount());
+        }
+        assertEquals(0, new BigDecimal(harness.contract().totalDeposit()).signum());
+        for (int i = 0; i < USERS; i++) {
+            Address user = PocmHarness.user(i);
+            assertNull(harness.contract().getDepositInfo(user));
+            assertEquals("user" + i, STAKE, user.balance());
+            assertTrue(user.balance(CANDY_CHAIN_ID, CANDY_ASSET_ID).signum() > 0);
+        }
+        // 一轮结束后再次调用开始新的一轮，没有用户时直接结束
+        harness.asOwner();
+        assertEquals(0, harness.contract().quitAllBatch(USERS));
+    }
+
+    @Test
+    public void maxUsersBoundsEachCallAndNewUsersWaitForNextRound() {
+        PocmHarness harness = new PocmHarness().deploy(USERS, 0);
+        LocalRuntime.nextBlock(10);
+        harness.asOwner();
+        assertEquals(USERS - 10, harness.contract().receiveAllBatch(10));
+
+        // 本轮开始后加入的用户排在游标之后，本轮不处理
+        Address late = PocmHarness.user(USERS);
+        harness.deposit(late, STAKE);
+        LocalRuntime.nextBlock(10);
+        harness.asOwner();
+        assertEquals(USERS - 20, harness.contract().receiveAllBatch(10));
+        harness.asOwner();
+        assertEquals(0, harness.contract().receiveAllBatch(10));
+        assertTrue(harness.contract().batchProgress(BATCH_RECEIVE).contains("\"done\":true"));
+        assertEquals(BigInteger.ZERO, late.balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+
+        // 新的一轮包含该用户
+        harness.asOwner();
+        assertEquals(USERS + 1 - 10, harness.contract().receiveAllBatch(10));
+        assertFalse(harness.contract().batchProgress(BATCH_RECEIVE).contains("\"done\":true"));
+    }
+
+    @Test
+    public void quitAllBatchRequiresOwnerAndPositiveMaxUsers() {
+        PocmHarness harness = new PocmHarness().deploy(3, 0);
+        LocalRuntime.call(PocmHarness.user(0), BigInteger.ZERO);
+        assertQuitReverts(harness, 1);
+        harness.asOwner();
+        assertQuitReverts(harness, 0);
+        assertEquals(3, harness.contract().totalDepositAddressCount());
+    }
+
+    private static void assertQuitReverts(PocmHarness harness, int maxUsers) {
+        try {
+            harness.contract().quitAllBatch(maxUsers);
+            fail("batch should revert, maxUsers=" + maxUsers);
+        } catch (LocalRuntime.RevertException e) {
+            // expected
+        }
+    }
+}
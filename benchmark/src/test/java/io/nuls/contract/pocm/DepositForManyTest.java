@@ -0,0 +1,138 @@
+package io.nuls.contract.pocm;
+
+import io.nuls.contract.pocm.benchmark.PocmHarness;
+import io.nuls.contract.pocm.event.DepositDetailInfoEvent;
+import io.nuls.contract.pocm.event.PocmBatchDepositEvent;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Event;
+import io.nuls.contract.sdk.LocalRuntime;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_ASSET_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_CHAIN_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.ONE_NULS;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.STAKE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * depositForMany: 每个地址的抵押金额、合并后一次退还的小数位、合并的抵押事件，
+ * 已有用户先结算奖励，以及重复地址、金额不匹配等情况下回滚
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class DepositForManyTest {
+
+    private static final Address PAYER = PocmHarness.user(9);
+
+    private final List<Event> events = new ArrayList<Event>();
+    private final LocalRuntime.EventListener listener = new LocalRuntime.EventListener() {
+        @Override
+        public void onEvent(Event event) {
+            events.add(event);
+        }
+    };
+
+    @Test
+    public void stakesEachAddressAndRefundsDecimalsOnce() {
+        PocmHarness harness = this.deploy(0);
+        String[] addresses = addresses(1, 2, 3);
+        // 100.3、200、300.5 NULS
+        BigInteger[] amounts = new BigInteger[]{BigInteger.valueOf(10030000000L), nuls(200), BigInteger.valueOf(30050000000L)};
+        harness.depositForMany(PAYER, addresses, amounts);
+
+        long[] staked = new long[]{100, 200, 300};
+        for (int i = 0; i < addresses.length; i++) {
+            Address user = new Address(addresses[i]);
+            assertEquals(nuls(staked[i]), harness.contract().getDepositInfo(user).getAmount());
+            assertEquals(BigInteger.ZERO, user.balance());
+        }
+        assertEquals(3, harness.contract().totalDepositAddressCount());
+        // 0.3 + 0.5 NULS一次退还给调用者
+        assertEquals(BigInteger.valueOf(80000000L), PAYER.balance());
+        assertEquals(1L, LocalRuntime.getCounters().transfers);
+        assertEquals(1, this.count(PocmBatchDepositEvent.class));
+        assertEquals(0, this.count(DepositDetailInfoEvent.class));
+    }
+
+    @Test
+    public void existingStakerSettlesBeforeTopUp() {
+        PocmHarness harness = this.deploy(1);
+        Address staker = PocmHarness.user(0);
+        LocalRuntime.nextBlock(10);
+        BigInteger pending = new BigInteger(harness.contract().pendingToken(staker));
+        harness.depositForMany(PAYER, new String[]{staker.toString(), PocmHarness.user(1).toString()},
+                new BigInteger[]{nuls(100), nuls(100)});
+        assertEquals(STAKE.add(nuls(100)), harness.contract().getDepositInfo(staker).getAmount());
+        assertEquals(pending, staker.balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+        assertEquals("0", harness.contract().pendingToken(staker));
+        assertEquals(BigInteger.ZERO, PAYER.balance());
+    }
+
+    @Test
+    public void rejectsBadBatches() {
+        assertReverts("duplicate address", addresses(1, 2, 1), nuls(100), nuls(100), nuls(100));
+        assertReverts("addresses and amounts not match", addresses(1, 2), nuls(100));
+        assertReverts("empty addresses", new String[0]);
+        assertReverts("amount not good", addresses(1), BigInteger.ZERO);
+        assertReverts("amount not good[minimum]", addresses(1), ONE_NULS.divide(BigInteger.TEN));
+        // 合并后的小数位不足最小转账金额
+        assertReverts("decimal refund too small", addresses(1, 2), nuls(100).add(BigInteger.ONE), nuls(100));
+
+        PocmHarness harness = new PocmHarness().deploy(0, 0);
+        try {
+            LocalRuntime.call(PAYER, nuls(150));
+            harness.contract().depositForMany(addresses(1), new BigInteger[]{nuls(100)});
+            fail("value mismatch should revert");
+        } catch (LocalRuntime.RevertException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("value not good"));
+        }
+    }
+
+    private PocmHarness deploy(int userCount) {
+        PocmHarness harness = new PocmHarness().eventListener(listener).deploy(userCount, 0);
+        events.clear();
+        return harness;
+    }
+
+    private int count(Class<? extends Event> type) {
+        int count = 0;
+        for (Event event : events) {
+            if (type.isInstance(event)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static String[] addresses(int... users) {
+        String[] addresses = new String[users.length];
+        for (int i = 0; i < users.length; i++) {
+            addresses[i] = PocmHarness.user(users[i]).toString();
+        }
+        return addresses;
+    }
+
+    private static BigInteger nuls(long value) {
+        return ONE_NULS.multiply(BigInteger.valueOf(value));
+    }
+
+    /**
+     * 替身中revert不回滚状态，每种情况使用新部署的合约
+     */
+    private static void assertReverts(String message, String[] addresses, BigInteger... amounts) {
+        PocmHarness harness = new PocmHarness().deploy(0, 0);
+        try {
+            harness.depositForMany(PAYER, addresses, amounts);
+            fail("depositForMany should revert: " + message);
+        } catch (LocalRuntime.RevertException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+}
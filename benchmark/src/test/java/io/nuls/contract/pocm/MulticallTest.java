@@ -0,0 +1,124 @@
+package io.nuls.contract.pocm;
+
+import io.nuls.contract.pocm.benchmark.PocmHarness;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.LocalRuntime;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_ASSET_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_CHAIN_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.ONE_NULS;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.STAKE;
+import static io.nuls.contract.pocm.util.PocmUtil.MULTICALL_MAX_OPERATIONS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * multicall: 多个操作合并后的抵押金额、退还的抵押金和发放的奖励，全部退出时删除用户，
+ * 以及未知操作、格式错误的金额等情况下回滚
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class MulticallTest {
+
+    private static final Address USER = PocmHarness.user(0);
+
+    @Test
+    public void combinesDepositWithdrawAndReceive() {
+        PocmHarness harness = new PocmHarness().deploy(1, 0);
+        LocalRuntime.nextBlock(10);
+        BigInteger pending = new BigInteger(harness.contract().pendingToken(USER));
+        BigInteger deposit = nuls(2000);
+        BigInteger withdraw = nuls(500);
+        LocalRuntime.getCounters().clear();
+
+        harness.multicall(USER, deposit, "deposit:" + deposit, "withdraw:" + withdraw, "receive");
+        BigInteger amount = STAKE.add(deposit).subtract(withdraw);
+        assertEquals(amount, harness.contract().getDepositInfo(USER).getAmount());
+        assertEquals(withdraw, USER.balance());
+        assertEquals(pending, USER.balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+        // 退还的抵押金和奖励各转账一次
+        assertEquals(1L, LocalRuntime.getCounters().transfers);
+        assertEquals(1L, LocalRuntime.getCounters().lockedTransfers);
+    }
+
+    @Test
+    public void newUserDepositsThroughMulticall() {
+        PocmHarness harness = new PocmHarness().deploy(1, 0);
+        Address user = PocmHarness.user(1);
+        BigInteger first = nuls(300);
+        BigInteger second = nuls(700);
+        harness.multicall(user, first.add(second), "deposit:" + first, "deposit:" + second);
+        assertEquals(first.add(second), harness.contract().getDepositInfo(user).getAmount());
+        assertEquals(2, harness.contract().totalDepositAddressCount());
+    }
+
+    @Test
+    public void withdrawingEverythingRemovesUser() {
+        PocmHarness harness = new PocmHarness().deploy(1, 0);
+        LocalRuntime.nextBlock(10);
+        BigInteger pending = new BigInteger(harness.contract().pendingToken(USER));
+        harness.multicall(USER, BigInteger.ZERO, "withdraw:" + nuls(1000), "withdraw:" + STAKE.subtract(nuls(1000)));
+        assertNull(harness.contract().getDepositInfo(USER));
+        assertEquals(0, harness.contract().totalDepositAddressCount());
+        assertEquals(STAKE, USER.balance());
+        // 全部退出时不需要receive也发放奖励
+        assertEquals(pending, USER.balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+
+        // 同一次调用内加入后全部退出，不留下用户
+        Address user = PocmHarness.user(1);
+        harness.multicall(user, STAKE, "deposit:" + STAKE, "withdraw:" + STAKE);
+        assertNull(harness.contract().getDepositInfo(user));
+        assertEquals(STAKE, user.balance());
+    }
+
+    @Test
+    public void rejectsBadOperations() {
+        assertReverts("unknown operation", BigInteger.ZERO, "stake:" + ONE_NULS);
+        assertReverts("unknown operation", BigInteger.ZERO, "Receive");
+        assertReverts("empty operation", BigInteger.ZERO, "receive", null);
+        assertReverts("empty operations", BigInteger.ZERO);
+        assertReverts("amount required", BigInteger.ZERO, "withdraw:");
+        assertReverts("amount required", BigInteger.ZERO, "withdraw");
+        assertReverts("amount not good", BigInteger.ZERO, "withdraw:-" + ONE_NULS);
+        assertReverts("amount not good", BigInteger.ZERO, "withdraw:+" + ONE_NULS);
+        assertReverts("amount not good", ONE_NULS, "deposit:1e8");
+        assertReverts("amount not good", ONE_NULS, "deposit: " + ONE_NULS);
+        assertReverts("floating point", nuls(2).add(BigInteger.ONE), "deposit:" + nuls(2).add(BigInteger.ONE));
+        assertReverts("value not good", nuls(3), "deposit:" + nuls(2));
+        assertReverts("withdraw: amount not good", BigInteger.ZERO, "withdraw:" + STAKE.add(ONE_NULS));
+        assertReverts("user not exist", BigInteger.ZERO, PocmHarness.user(1), "receive");
+
+        String[] operations = new String[MULTICALL_MAX_OPERATIONS + 1];
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = "receive";
+        }
+        assertReverts("too many operations", BigInteger.ZERO, operations);
+    }
+
+    private static BigInteger nuls(long value) {
+        return ONE_NULS.multiply(BigInteger.valueOf(value));
+    }
+
+    private static void assertReverts(String message, BigInteger value, String... operations) {
+        assertReverts(message, value, USER, operations);
+    }
+
+    /**
+     * 替身中revert不回滚状态，每种情况使用新部署的合约
+     */
+    private static void assertReverts(String message, BigInteger value, Address user, String... operations) {
+        PocmHarness harness = new PocmHarness().deploy(1, 0);
+        try {
+            harness.multicall(user, value, operations);
+            fail("multicall should revert: " + message);
+        } catch (LocalRuntime.RevertException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(message));
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package io.nuls.contract.pocm;
+
+import io.nuls.contract.pocm.benchmark.PocmHarness;
+import io.nuls.contract.pocm.event.PocmBatchSummaryEvent;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.Event;
+import io.nuls.contract.sdk.LocalRuntime;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_ASSET_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_CHAIN_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.STAKE;
+import static io.nuls.contract.pocm.util.PocmUtil.BATCH_GIVE_UP;
+import static io.nuls.contract.pocm.util.PocmUtil.BATCH_QUIT;
+import static io.nuls.contract.pocm.util.PocmUtil.BATCH_RECEIVE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 按地址批量处理: 跳过不存在、重复和不符合条件的地址而不回滚，
+ * PocmBatchSummaryEvent中的处理数量、跳过数量、发放的奖励和退还的抵押金与各用户的余额一致
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class ProcessAddressesTest {
+
+    private static final String UNKNOWN = "tNULSeBaUnknown";
+
+    private final List<Event> events = new ArrayList<Event>();
+    private final LocalRuntime.EventListener listener = new LocalRuntime.EventListener() {
+        @Override
+        public void onEvent(Event event) {
+            events.add(event);
+        }
+    };
+
+    @Test
+    public void tryReceiveSkipsUnknownAddresses() {
+        PocmHarness harness = this.deploy(3);
+        LocalRuntime.nextBlock(10);
+        BigInteger pending0 = this.pending(harness, 0);
+        BigInteger pending2 = this.pending(harness, 2);
+
+        LocalRuntime.call(PocmHarness.user(1), BigInteger.ZERO);
+        harness.contract().tryReceiveByAddresses(new String[]{this.address(0), UNKNOWN, null, this.address(2)});
+        this.assertSummary(BATCH_RECEIVE, 2, 2, pending0.add(pending2), BigInteger.ZERO);
+        assertEquals(pending0, PocmHarness.user(0).balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+        assertEquals(BigInteger.ZERO, PocmHarness.user(1).balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+        assertEquals(pending2, PocmHarness.user(2).balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+    }
+
+    @Test
+    public void tryQuitSkipsAddressesAlreadyRemoved() {
+        PocmHarness harness = this.deploy(3);
+        LocalRuntime.nextBlock(10);
+        BigInteger pending = this.pending(harness, 1);
+
+        harness.asOwner();
+        harness.contract().tryQuitByAddresses(new String[]{this.address(1), this.address(1), UNKNOWN});
+        // 第二次出现时用户已退出
+        this.assertSummary(BATCH_QUIT, 1, 2, pending, STAKE);
+        Address user = PocmHarness.user(1);
+        assertNull(harness.contract().getDepositInfo(user));
+        assertEquals(STAKE, user.balance());
+        assertEquals(pending, user.balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+        assertEquals(2, harness.contract().totalDepositAddressCount());
+    }
+
+    @Test
+    public void tryGiveUpSkipsUsersWithoutStake() {
+        PocmHarness harness = this.deploy(3);
+        harness.asOwner();
+        harness.contract().updateRewardClaimThreshold(BigInteger.TEN.pow(30));
+        // user0紧急退出后只剩已结算未发放的奖励
+        LocalRuntime.nextBlock(10);
+        harness.deposit(PocmHarness.user(0), STAKE);
+        LocalRuntime.call(PocmHarness.user(0), BigInteger.ZERO);
+        harness.contract().emergencyWithdraw();
+        assertNotNull(harness.contract().getDepositInfo(PocmHarness.user(0)));
+        events.clear();
+
+        LocalRuntime.nextBlock(10);
+        harness.asOfficial();
+        harness.contract().tryGiveUpByAddresses(new String[]{this.address(0), this.address(2), UNKNOWN});
+        // 紧急退出不发放奖励
+        this.assertSummary(BATCH_GIVE_UP, 1, 2, BigInteger.ZERO, STAKE);
+        assertNull(harness.contract().getDepositInfo(PocmHarness.user(2)));
+        assertEquals(STAKE, PocmHarness.user(2).balance());
+        assertEquals(BigInteger.ZERO, PocmHarness.user(2).balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+        assertNotNull(harness.contract().getDepositInfo(PocmHarness.user(0)));
+    }
+
+    @Test
+    public void batchesAreRestricted() {
+        PocmHarness harness = this.deploy(1);
+        String[] addresses = new String[]{this.address(0)};
+        LocalRuntime.call(PocmHarness.user(0), BigInteger.ZERO);
+        try {
+            harness.contract().tryQuitByAddresses(addresses);
+            fail("tryQuitByAddresses should require owner");
+        } catch (LocalRuntime.RevertException e) {
+            // expected
+        }
+        harness.asOwner();
+        try {
+            harness.contract().tryGiveUpByAddresses(addresses);
+            fail("tryGiveUpByAddresses should require official");
+        } catch (LocalRuntime.RevertException e) {
+            // expected
+        }
+        try {
+            harness.contract().tryReceiveByAddresses(null);
+            fail("null addresses should revert");
+        } catch (LocalRuntime.RevertException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("empty addresses"));
+        }
+        assertEquals(1, harness.contract().totalDepositAddressCount());
+        assertTrue(events.isEmpty());
+    }
+
+    private PocmHarness deploy(int userCount) {
+        PocmHarness harness = new PocmHarness().eventListener(listener).deploy(userCount, 0);
+        events.clear();
+        return harness;
+    }
+
+    private String address(int i) {
+        return PocmHarness.user(i).toString();
+    }
+
+    private BigInteger pending(PocmHarness harness, int i) {
+        return new BigInteger(harness.contract().pendingToken(PocmHarness.user(i)));
+    }
+
+    /**
+     * 本次调用只发出一个汇总事件
+     */
+    private void assertSummary(int mode, int processed, int skipped, BigInteger paidReward, BigInteger refundedStake) {
+        PocmBatchSummaryEvent summary = null;
+        for (Event event : events) {
+            if (event instanceof PocmBatchSummaryEvent) {
+                assertNull("more than one summary", summary);
+                summary = (PocmBatchSummaryEvent) event;
+            }
+        }
+        assertNotNull("no summary", summary);
+        assertEquals(mode, fieldValue(summary, "mode"));
+        assertEquals(processed, fieldValue(summary, "processed"));
+        assertEquals(skipped, fieldValue(summary, "skipped"));
+        assertEquals(paidReward, fieldValue(summary, "paidReward"));
+        assertEquals(refundedStake, fieldValue(summary, "refundedStake"));
+    }
+
+    private static Object fieldValue(Object target, String name) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            return field.get(target);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.nuls.contract.pocm;
+
+import io.nuls.contract.pocm.benchmark.PocmHarness;
+import io.nuls.contract.sdk.Address;
+import io.nuls.contract.sdk.LocalRuntime;
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_ASSET_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.CANDY_CHAIN_ID;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.ONE_NULS;
+import static io.nuls.contract.pocm.benchmark.PocmHarness.STAKE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 奖励发放阈值: 质押、部分退出时结算的奖励未达到阈值时记入已结算奖励且不转账，
+ * 达到阈值、领取或全部退出时一次发放全部已结算奖励
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class RewardClaimThresholdTest {
+
+    private static final BigInteger NEVER = BigInteger.TEN.pow(30);
+    private static final Address USER = PocmHarness.user(0);
+
+    @Test
+    public void depositAndPartialWithdrawAccrueBelowThreshold() {
+        PocmHarness harness = this.deploy(NEVER);
+        LocalRuntime.nextBlock(10);
+        BigInteger pending = this.pending(harness);
+        harness.deposit(USER, STAKE);
+        assertEquals(pending, this.accrued(harness));
+        this.assertPaid(BigInteger.ZERO, 0L);
+
+        LocalRuntime.nextBlock(10);
+        pending = this.pending(harness);
+        harness.withdraw(USER, ONE_NULS.multiply(BigInteger.valueOf(1000)));
+        assertEquals(pending, this.accrued(harness));
+        this.assertPaid(BigInteger.ZERO, 0L);
+
+        // 领取时不受阈值限制
+        LocalRuntime.nextBlock(10);
+        pending = this.pending(harness);
+        harness.receiveAwards(USER);
+        assertEquals(BigInteger.ZERO, this.accrued(harness));
+        this.assertPaid(pending, 1L);
+    }
+
+    @Test
+    public void depositPaysOnceAccruedReachesThreshold() {
+        PocmHarness harness = this.deploy(BigInteger.ZERO);
+        LocalRuntime.nextBlock(10);
+        BigInteger first = this.pending(harness);
+        harness.asOwner();
+        harness.contract().updateRewardClaimThreshold(first.add(BigInteger.ONE));
+
+        harness.deposit(USER, STAKE);
+        assertEquals(first, this.accrued(harness));
+        this.assertPaid(BigInteger.ZERO, 0L);
+
+        LocalRuntime.nextBlock(10);
+        BigInteger total = this.pending(harness);
+        assertTrue(total.compareTo(first) > 0);
+        harness.deposit(USER, STAKE);
+        assertEquals(BigInteger.ZERO, this.accrued(harness));
+        this.assertPaid(total, 1L);
+    }
+
+    @Test
+    public void fullWithdrawPaysAccruedAndRemovesUser() {
+        PocmHarness harness = this.deploy(NEVER);
+        LocalRuntime.nextBlock(10);
+        harness.deposit(USER, STAKE);
+        assertTrue(this.accrued(harness).signum() > 0);
+
+        LocalRuntime.nextBlock(10);
+        BigInteger pending = this.pending(harness);
+        harness.withdraw(USER, STAKE.add(STAKE));
+        assertNull(harness.contract().getDepositInfo(USER));
+        assertEquals(STAKE.add(STAKE), USER.balance());
+        this.assertPaid(pending, 1L);
+    }
+
+    @Test
+    public void zeroThresholdPaysOnEveryDeposit() {
+        PocmHarness harness = this.deploy(BigInteger.ZERO);
+        LocalRuntime.nextBlock(10);
+        BigInteger pending = this.pending(harness);
+        harness.deposit(USER, STAKE);
+        assertEquals(BigInteger.ZERO, this.accrued(harness));
+        this.assertPaid(pending, 1L);
+    }
+
+    @Test
+    public void thresholdUpdateIsRestricted() {
+        PocmHarness harness = this.deploy(BigInteger.ZERO);
+        LocalRuntime.call(USER, BigInteger.ZERO);
+        assertReverts(harness, BigInteger.ONE);
+        harness.asOwner();
+        assertReverts(harness, BigInteger.ONE.negate());
+    }
+
+    private PocmHarness deploy(BigInteger threshold) {
+        PocmHarness harness = new PocmHarness().deploy(1, 0);
+        harness.asOwner();
+        harness.contract().updateRewardClaimThreshold(threshold);
+        LocalRuntime.getCounters().clear();
+        return harness;
+    }
+
+    /**
+     * 已结算奖励加上未结算奖励
+     */
+    private BigInteger pending(PocmHarness harness) {
+        return new BigInteger(harness.contract().pendingToken(USER));
+    }
+
+    private BigInteger accrued(PocmHarness harness) {
+        return harness.contract().getDepositInfo(USER).getAccruedReward();
+    }
+
+    /**
+     * 用户累计收到的糖果和发放奖励的转账次数
+     */
+    private void assertPaid(BigInteger candy, long transfers) {
+        assertEquals(candy, USER.balance(CANDY_CHAIN_ID, CANDY_ASSET_ID));
+        assertEquals(transfers, LocalRuntime.getCounters().lockedTransfers);
+    }
+
+    private static void assertReverts(PocmHarness harness, BigInteger threshold) {
+        try {
+            harness.contract().updateRewardClaimThreshold(threshold);
+            fail("update should revert: " + threshold);
+        } catch (LocalRuntime.RevertException e) {
+            // expected
+        }
+    }
+}
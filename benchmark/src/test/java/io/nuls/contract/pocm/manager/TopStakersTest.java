@@ -0,0 +1,105 @@
+package io.nuls.contract.pocm.manager;
+
+import io.nuls.contract.pocm.model.UserInfo;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static io.nuls.contract.pocm.util.PocmUtil.TOP_STAKERS_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 通过UserInfoManager随机增删用户、修改抵押金额，名单精确时以及重新填充后，
+ * 前几名与对全部用户排序的结果逐项对比
+ * 金额取值范围较小，覆盖大量金额相同、按地址排列的情况
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class TopStakersTest {
+
+    private static final int USERS = 60;
+    private static final int ROUNDS = 20000;
+
+    @Test
+    public void topMatchesSortedStakers() {
+        for (long seed = 1; seed <= 5; seed++) {
+            this.run(new Random(seed));
+        }
+    }
+
+    private void run(Random random) {
+        UserInfoManager manager = new UserInfoManager();
+        Map<String, Long> stakes = new HashMap<String, Long>();
+        int stale = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            String address = "tNULSeBaUser" + random.nextInt(USERS);
+            UserInfo user = manager.get(address);
+            int action = random.nextInt(4);
+            if (user == null) {
+                long amount = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(30);
+                manager.put(address, new UserInfo(amount, amount, 1L));
+            } else if (action == 0) {
+                manager.remove(address);
+            } else {
+                long previous = user.getAmount();
+                long delta = 1 + random.nextInt(10);
+                if (action == 1) {
+                    user.addAmount(delta, delta);
+                } else {
+                    delta = Math.min(delta, previous);
+                    user.subAmount(delta, delta);
+                }
+                manager.amountChanged(user, previous);
+            }
+            user = manager.get(address);
+            if (user == null || user.getAmount() == 0) {
+                stakes.remove(address);
+            } else {
+                stakes.put(address, user.getAmount());
+            }
+
+            TopStakers top = manager.getStats().getTopStakers();
+            if (top.isExact()) {
+                this.assertTop(top, stakes);
+            } else {
+                stale++;
+                // 不精确时名单内的用户仍按金额排序
+                for (int j = 1; j < top.size(); j++) {
+                    assertTrue(top.amountAt(j - 1) >= top.amountAt(j));
+                }
+                if (random.nextInt(8) == 0) {
+                    manager.refreshTopStakers();
+                    assertTrue(top.isExact());
+                    this.assertTop(top, stakes);
+                }
+            }
+        }
+        manager.refreshTopStakers();
+        this.assertTop(manager.getStats().getTopStakers(), stakes);
+        assertTrue("stale state never reached", stale > 0);
+    }
+
+    private void assertTop(TopStakers top, Map<String, Long> stakes) {
+        List<Map.Entry<String, Long>> expected = new ArrayList<Map.Entry<String, Long>>(stakes.entrySet());
+        Collections.sort(expected, new Comparator<Map.Entry<String, Long>>() {
+            @Override
+            public int compare(Map.Entry<String, Long> o1, Map.Entry<String, Long> o2) {
+                int result = o2.getValue().compareTo(o1.getValue());
+                return result != 0 ? result : o2.getKey().compareTo(o1.getKey());
+            }
+        });
+        assertEquals("size", Math.min(TOP_STAKERS_SIZE, expected.size()), top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals("top[" + i + "]", expected.get(i).getKey(), top.addressAt(i));
+            assertEquals("top[" + i + "]", expected.get(i).getValue().longValue(), top.amountAt(i));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.nuls.contract.pocm.manager.deposit;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 随机设置、增减、删除节点额度后，AgentCapacityIndex的查询与遍历全部节点的结果逐项对比
+ * 额度相同时索引按最近一次修改的先后排列，对比模型用LinkedHashMap记录修改顺序
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class AgentCapacityIndexTest {
+
+    private static final int AGENTS = 12;
+    private static final int ROUNDS = 5000;
+
+    @Test
+    public void queriesMatchBruteForce() {
+        for (long seed = 1; seed <= 5; seed++) {
+            this.run(new Random(seed));
+        }
+    }
+
+    private void run(Random random) {
+        AgentCapacityIndex index = new AgentCapacityIndex();
+        // 按最近一次修改的先后排列
+        LinkedHashMap<String, BigInteger> model = new LinkedHashMap<String, BigInteger>();
+        for (int i = 0; i < ROUNDS; i++) {
+            String agent = "agent" + random.nextInt(AGENTS);
+            int action = random.nextInt(4);
+            if (action == 0) {
+                index.remove(agent);
+                model.remove(agent);
+            } else if (action == 1) {
+                BigInteger value = BigInteger.valueOf(random.nextInt(11) - 5);
+                index.add(agent, value);
+                BigInteger capacity = model.get(agent);
+                if (capacity != null) {
+                    this.put(model, agent, capacity.add(value));
+                }
+            } else {
+                BigInteger capacity = BigInteger.valueOf(random.nextInt(12) - 2);
+                index.put(agent, capacity);
+                this.put(model, agent, capacity);
+            }
+
+            assertEquals(model.size(), index.size());
+            for (int j = 0; j < AGENTS; j++) {
+                String hash = "agent" + j;
+                assertEquals(model.containsKey(hash), index.contains(hash));
+                assertEquals(model.get(hash), index.capacity(hash));
+            }
+            assertEquals(this.expectedLast(model), index.last());
+            BigInteger amount = BigInteger.valueOf(random.nextInt(14) - 1);
+            assertEquals("ceiling " + amount, this.expectedCeiling(model, amount), index.ceiling(amount));
+        }
+        for (String hash : new ArrayList<String>(model.keySet())) {
+            index.remove(hash);
+        }
+        assertEquals(0, index.size());
+        assertNull(index.last());
+    }
+
+    private void put(LinkedHashMap<String, BigInteger> model, String agent, BigInteger capacity) {
+        if (capacity.signum() < 0) {
+            capacity = BigInteger.ZERO;
+        }
+        BigInteger previous = model.get(agent);
+        // 额度不变时索引不调整顺序
+        if (previous != null && previous.compareTo(capacity) == 0) {
+            return;
+        }
+        model.remove(agent);
+        model.put(agent, capacity);
+    }
+
+    private String expectedLast(Map<String, BigInteger> model) {
+        String result = null;
+        BigInteger max = null;
+        for (Map.Entry<String, BigInteger> entry : model.entrySet()) {
+            // 额度相同时取最后修改的节点
+            if (max == null || entry.getValue().compareTo(max) >= 0) {
+                max = entry.getValue();
+                result = entry.getKey();
+            }
+        }
+        return result;
+    }
+
+    private String expectedCeiling(Map<String, BigInteger> model, BigInteger amount) {
+        List<String> candidates = new ArrayList<String>();
+        BigInteger min = null;
+        for (Map.Entry<String, BigInteger> entry : model.entrySet()) {
+            BigInteger capacity = entry.getValue();
+            if (capacity.compareTo(amount) < 0) {
+                continue;
+            }
+            // 额度相同时取最早修改的节点
+            if (min == null || capacity.compareTo(min) < 0) {
+                min = capacity;
+                candidates.clear();
+                candidates.add(entry.getKey());
+            }
+        }
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+}
@@ -0,0 +1,112 @@
+package io.nuls.contract.pocm.manager.deposit;
+
+import io.nuls.contract.pocm.model.ConsensusDepositInfo;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 随机加入、删除委托后，DepositIndex的各个查询与TreeMap(金额 -> 按加入顺序的委托列表)逐项对比
+ * 金额取值范围较小，覆盖大量金额相同、按加入顺序排列的情况
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class DepositIndexTest {
+
+    private static final int AGENTS = 5;
+    private static final int ROUNDS = 5000;
+    private static final long ONE_NULS = 100000000L;
+
+    @Test
+    public void queriesMatchTreeMap() {
+        for (long seed = 1; seed <= 5; seed++) {
+            this.run(new Random(seed));
+        }
+    }
+
+    private void run(Random random) {
+        DepositIndex index = new DepositIndex();
+        TreeMap<BigInteger, List<ConsensusDepositInfo>> model = new TreeMap<BigInteger, List<ConsensusDepositInfo>>();
+        List<ConsensusDepositInfo> live = new ArrayList<ConsensusDepositInfo>();
+        int nextHash = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            if (live.isEmpty() || random.nextInt(3) != 0) {
+                BigInteger amount = BigInteger.valueOf((200 + random.nextInt(20)) * ONE_NULS);
+                ConsensusDepositInfo info = new ConsensusDepositInfo("agent" + random.nextInt(AGENTS), "hash" + nextHash++, amount);
+                index.add(info);
+                live.add(info);
+                List<ConsensusDepositInfo> list = model.get(amount);
+                if (list == null) {
+                    list = new ArrayList<ConsensusDepositInfo>();
+                    model.put(amount, list);
+                }
+                list.add(info);
+            } else {
+                ConsensusDepositInfo info = live.remove(random.nextInt(live.size()));
+                assertEquals(info, index.remove(info.getHash()));
+                List<ConsensusDepositInfo> list = model.get(info.getDeposit());
+                list.remove(info);
+                if (list.isEmpty()) {
+                    model.remove(info.getDeposit());
+                }
+            }
+            if (i % 50 == 0) {
+                this.assertMatches(index, model, live, random);
+            }
+        }
+        this.assertMatches(index, model, live, random);
+        assertNull(index.remove("hash" + nextHash));
+    }
+
+    private void assertMatches(DepositIndex index, TreeMap<BigInteger, List<ConsensusDepositInfo>> model,
+                               List<ConsensusDepositInfo> live, Random random) {
+        List<ConsensusDepositInfo> expected = new ArrayList<ConsensusDepositInfo>();
+        BigInteger total = BigInteger.ZERO;
+        for (Map.Entry<BigInteger, List<ConsensusDepositInfo>> entry : model.entrySet()) {
+            expected.addAll(entry.getValue());
+            total = total.add(entry.getKey().multiply(BigInteger.valueOf(entry.getValue().size())));
+        }
+        assertEquals(expected.size(), index.size());
+        assertEquals(expected.isEmpty(), index.isEmpty());
+        assertEquals(total, index.total());
+        assertEquals(expected, index.toList());
+
+        assertEquals(expected.isEmpty() ? null : expected.get(0), index.first());
+        assertEquals(expected.isEmpty() ? null : expected.get(expected.size() - 1), index.last());
+
+        for (int i = 0; i < 5; i++) {
+            BigInteger amount = BigInteger.valueOf((199 + random.nextInt(23)) * ONE_NULS + random.nextInt(3) - 1);
+            Map.Entry<BigInteger, List<ConsensusDepositInfo>> ceiling = model.ceilingEntry(amount);
+            assertEquals("ceiling " + amount, ceiling == null ? null : ceiling.getValue().get(0), index.ceiling(amount));
+
+            int offset = random.nextInt(expected.size() + 3);
+            int limit = random.nextInt(30);
+            List<ConsensusDepositInfo> range = expected.subList(Math.min(offset, expected.size()), Math.min(offset + limit, expected.size()));
+            assertEquals("range " + offset + "," + limit, range, index.range(offset, limit));
+        }
+
+        for (int a = 0; a <= AGENTS; a++) {
+            String agentHash = "agent" + a;
+            List<ConsensusDepositInfo> agentDeposits = new ArrayList<ConsensusDepositInfo>();
+            for (ConsensusDepositInfo info : expected) {
+                if (agentHash.equals(info.getAgentHash())) {
+                    agentDeposits.add(info);
+                }
+            }
+            assertEquals(agentHash, agentDeposits, index.agentDeposits(agentHash));
+        }
+
+        for (ConsensusDepositInfo info : live) {
+            assertEquals(info, index.get(info.getHash()));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package io.nuls.contract.pocm.manager.deposit;
+
+import io.nuls.contract.pocm.model.ConsensusDepositInfo;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * WithdrawPlanner与穷举所有组合的结果对比
+ * 搜索上限足够时交易数量和退出总额都与穷举相同；上限很小时交易数量仍最少，退出总额不小于期望金额
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class WithdrawPlannerTest {
+
+    private static final int MAX_DEPOSITS = 12;
+    private static final int ROUNDS = 3000;
+    private static final long ONE_NULS = 100000000L;
+
+    @Test
+    public void matchesBruteForceWithinSearchLimit() {
+        Random random = new Random(20261018L);
+        for (int i = 0; i < ROUNDS; i++) {
+            List<ConsensusDepositInfo> deposits = this.randomDeposits(random);
+            BigInteger expect = this.randomExpect(random, deposits);
+            long[] optimal = bruteForce(deposits, expect.longValue());
+
+            List<ConsensusDepositInfo> plan = WithdrawPlanner.plan(deposits, expect, Integer.MAX_VALUE);
+            this.assertValid(deposits, expect, plan);
+            assertEquals("count " + deposits + " expect " + expect, optimal[0], plan.size());
+            assertEquals("sum " + deposits + " expect " + expect, optimal[1], sum(plan));
+        }
+    }
+
+    @Test
+    public void keepsMinimalCountWhenSearchIsCut() {
+        Random random = new Random(7L);
+        for (int i = 0; i < ROUNDS; i++) {
+            List<ConsensusDepositInfo> deposits = this.randomDeposits(random);
+            BigInteger expect = this.randomExpect(random, deposits);
+            long[] optimal = bruteForce(deposits, expect.longValue());
+
+            List<ConsensusDepositInfo> plan = WithdrawPlanner.plan(deposits, expect, random.nextInt(4));
+            this.assertValid(deposits, expect, plan);
+            assertEquals("count " + deposits + " expect " + expect, optimal[0], plan.size());
+            assertTrue(sum(plan) >= optimal[1]);
+        }
+    }
+
+    private void assertValid(List<ConsensusDepositInfo> deposits, BigInteger expect, List<ConsensusDepositInfo> plan) {
+        Set<String> hashes = new HashSet<String>();
+        for (ConsensusDepositInfo info : plan) {
+            assertTrue("unknown deposit " + info.getHash(), deposits.contains(info));
+            assertTrue("duplicate deposit " + info.getHash(), hashes.add(info.getHash()));
+        }
+        long total = sum(deposits);
+        if (expect.signum() <= 0) {
+            assertEquals(0, plan.size());
+        } else if (total <= expect.longValue()) {
+            assertEquals(deposits.size(), plan.size());
+        } else {
+            assertTrue(sum(plan) >= expect.longValue());
+        }
+    }
+
+    /**
+     * @return {最少的委托数量, 该数量下不小于need的最小总额}；总额不足时为全部委托
+     */
+    private static long[] bruteForce(List<ConsensusDepositInfo> deposits, long need) {
+        int n = deposits.size();
+        if (need <= 0) {
+            return new long[]{0, 0};
+        }
+        long total = sum(deposits);
+        if (total <= need) {
+            return new long[]{n, total};
+        }
+        long bestCount = Long.MAX_VALUE;
+        long bestSum = Long.MAX_VALUE;
+        for (int mask = 1; mask < (1 << n); mask++) {
+            long s = 0;
+            for (int i = 0; i < n; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    s += deposits.get(i).getDeposit().longValue();
+                }
+            }
+            if (s < need) {
+                continue;
+            }
+            int count = Integer.bitCount(mask);
+            if (count < bestCount || (count == bestCount && s < bestSum)) {
+                bestCount = count;
+                bestSum = s;
+            }
+        }
+        return new long[]{bestCount, bestSum};
+    }
+
+    /**
+     * 按金额升序的委托，金额为整数NULS加少量零头，部分金额相同
+     */
+    private List<ConsensusDepositInfo> randomDeposits(Random random) {
+        int n = random.nextInt(MAX_DEPOSITS + 1);
+        List<ConsensusDepositInfo> deposits = new ArrayList<ConsensusDepositInfo>(n);
+        for (int i = 0; i < n; i++) {
+            long amount = (200 + random.nextInt(random.nextBoolean() ? 10 : 2000)) * ONE_NULS;
+            if (random.nextInt(4) == 0) {
+                amount += random.nextInt(1000);
+            }
+            deposits.add(new ConsensusDepositInfo("agent" + random.nextInt(3), "hash" + i, BigInteger.valueOf(amount)));
+        }
+        Collections.sort(deposits, new Comparator<ConsensusDepositInfo>() {
+            @Override
+            public int compare(ConsensusDepositInfo o1, ConsensusDepositInfo o2) {
+                return o1.getDeposit().compareTo(o2.getDeposit());
+            }
+        });
+        return deposits;
+    }
+
+    private BigInteger randomExpect(Random random, List<ConsensusDepositInfo> deposits) {
+        long total = sum(deposits);
+        switch (random.nextInt(10)) {
+            case 0:
+                return BigInteger.ZERO;
+            case 1:
+                return BigInteger.valueOf(total + random.nextInt(2));
+            case 2:
+                // 恰好等于某笔委托的金额
+                return deposits.isEmpty() ? BigInteger.ONE : deposits.get(random.nextInt(deposits.size())).getDeposit();
+            default:
+                return BigInteger.valueOf(1 + (long) (random.nextDouble() * total));
+        }
+    }
+
+    private static long sum(List<ConsensusDepositInfo> deposits) {
+        long sum = 0;
+        for (ConsensusDepositInfo info : deposits) {
+            sum += info.getDeposit().longValue();
+        }
+        return sum;
+    }
+}
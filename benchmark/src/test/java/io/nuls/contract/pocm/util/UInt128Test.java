@@ -0,0 +1,161 @@
+package io.nuls.contract.pocm.util;
+
+import io.nuls.contract.sdk.LocalRuntime;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * UInt128与BigInteger逐项对比：随机取值覆盖64位以内、跨64位和接近128位的数，
+ * 结果超出128位或为负时要求合约回滚
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class UInt128Test {
+
+    private static final BigInteger _1e12 = BigInteger.TEN.pow(12);
+    private static final BigInteger MAX = BigInteger.ONE.shiftLeft(128).subtract(BigInteger.ONE);
+    private static final int ROUNDS = 200000;
+
+    private final Random random = new Random(20261018L);
+
+    @Test
+    public void roundTripsThroughBigInteger() {
+        for (BigInteger value : edgeValues()) {
+            assertEquals(value, UInt128.valueOf(value).toBigInteger());
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            BigInteger value = this.randomValue();
+            assertEquals(value, UInt128.valueOf(value).toBigInteger());
+        }
+        assertReverts(MAX.add(BigInteger.ONE), "valueOf");
+        assertReverts(BigInteger.ONE.negate(), "valueOf");
+    }
+
+    @Test
+    public void mulDivE12MatchesBigIntegerFloor() {
+        long[] edgeAmounts = new long[]{0L, 1L, 999999999999L, 1000000000000L, 1000000000001L, Long.MAX_VALUE};
+        for (BigInteger value : edgeValues()) {
+            for (long amount : edgeAmounts) {
+                this.checkMulDiv(value, amount);
+            }
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            this.checkMulDiv(this.randomValue(), this.randomAmount());
+        }
+    }
+
+    @Test
+    public void addAndSubtractMatchBigInteger() {
+        for (int i = 0; i < ROUNDS; i++) {
+            BigInteger a = this.randomValue();
+            BigInteger b = this.randomValue();
+
+            BigInteger sum = a.add(b);
+            UInt128 x = UInt128.valueOf(a);
+            if (sum.compareTo(MAX) > 0) {
+                try {
+                    x.add(UInt128.valueOf(b));
+                    fail("add overflow not detected: " + a + " + " + b);
+                } catch (LocalRuntime.RevertException e) {
+                    // expected
+                }
+            } else {
+                x.add(UInt128.valueOf(b));
+                assertEquals(a + " + " + b, sum, x.toBigInteger());
+            }
+
+            if (a.compareTo(b) >= 0) {
+                assertEquals(a + " - " + b, a.subtract(b), UInt128.valueOf(a).subtract(UInt128.valueOf(b)).toBigInteger());
+            } else {
+                try {
+                    UInt128.valueOf(a).subtract(UInt128.valueOf(b));
+                    fail("subtract underflow not detected: " + a + " - " + b);
+                } catch (LocalRuntime.RevertException e) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test
+    public void compareToMatchesBigInteger() {
+        for (int i = 0; i < ROUNDS; i++) {
+            BigInteger a = this.randomValue();
+            BigInteger b = random.nextInt(8) == 0 ? a : this.randomValue();
+            int compare = UInt128.valueOf(a).compareTo(UInt128.valueOf(b));
+            assertEquals(a + " <> " + b, (long) a.compareTo(b), (long) Integer.signum(compare));
+            assertEquals(a.equals(b), UInt128.valueOf(a).equals(UInt128.valueOf(b)));
+        }
+    }
+
+    private void checkMulDiv(BigInteger value, long amount) {
+        BigInteger expected = value.multiply(BigInteger.valueOf(amount)).divide(_1e12);
+        UInt128 x = UInt128.valueOf(value);
+        if (expected.compareTo(MAX) > 0) {
+            try {
+                x.mulDivE12(amount);
+                fail("mulDivE12 overflow not detected: " + value + " * " + amount);
+            } catch (LocalRuntime.RevertException e) {
+                // expected
+            }
+            return;
+        }
+        assertEquals(value + " * " + amount, expected, x.mulDivE12(amount).toBigInteger());
+        // 写入已有对象的版本结果相同，且不依赖目标对象原来的值
+        UInt128 target = UInt128.valueOf(this.randomValue());
+        x.mulDivE12(amount, target);
+        assertEquals(value + " * " + amount, expected, target.toBigInteger());
+        // 被乘数本身不变
+        assertEquals(value, x.toBigInteger());
+    }
+
+    private static BigInteger[] edgeValues() {
+        BigInteger two64 = BigInteger.ONE.shiftLeft(64);
+        return new BigInteger[]{
+                BigInteger.ZERO,
+                BigInteger.ONE,
+                _1e12,
+                BigInteger.valueOf(Long.MAX_VALUE),
+                two64.subtract(BigInteger.ONE),
+                two64,
+                two64.add(BigInteger.ONE),
+                BigInteger.ONE.shiftLeft(96).subtract(BigInteger.ONE),
+                BigInteger.ONE.shiftLeft(127),
+                MAX
+        };
+    }
+
+    /**
+     * 随机位数的非负数，各个区间的概率相近
+     */
+    private BigInteger randomValue() {
+        int bits = random.nextInt(129);
+        BigInteger value = new BigInteger(bits, random);
+        // 部分取全1的低位，覆盖进位和借位
+        if (random.nextInt(16) == 0) {
+            value = BigInteger.ONE.shiftLeft(bits).subtract(BigInteger.ONE);
+        }
+        return value;
+    }
+
+    private long randomAmount() {
+        int bits = random.nextInt(64);
+        return bits == 0 ? 0L : (random.nextLong() >>> (64 - bits));
+    }
+
+    private static void assertReverts(BigInteger value, String operation) {
+        try {
+            UInt128.valueOf(value);
+            fail(operation + " should revert: " + value);
+        } catch (LocalRuntime.RevertException e) {
+            assertTrue(e.getMessage().contains("UInt128"));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.nuls.contract.pocm.indexer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以文件保存的事件日志，只追加，每行一条EventRecord，空行和#开头的行忽略
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class EventLog {
+
+    private final File file;
+
+    public EventLog(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void append(List<EventRecord> records) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+        try {
+            for (EventRecord record : records) {
+                writer.write(record.format());
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @param skip 跳过的记录数量，即已经处理过的记录
+     * @return 之后的所有记录
+     */
+    public List<EventRecord> read(long skip) throws IOException {
+        List<EventRecord> records = new ArrayList<EventRecord>();
+        if (!file.exists()) {
+            return records;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        try {
+            long index = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (index++ < skip) {
+                    continue;
+                }
+                records.add(EventRecord.parse(line));
+            }
+        } finally {
+            reader.close();
+        }
+        return records;
+    }
+}
@@ -0,0 +1,108 @@
+package io.nuls.contract.pocm.indexer;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件日志中的一条记录，一行的格式为: 区块高度\t事件名\t字段=值\t字段=值...
+ * 列表字段的多个值以逗号分隔
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class EventRecord {
+
+    private final long height;
+    private final String type;
+    private final Map<String, String> fields;
+
+    public EventRecord(long height, String type) {
+        this(height, type, new LinkedHashMap<String, String>());
+    }
+
+    private EventRecord(long height, String type, Map<String, String> fields) {
+        this.height = height;
+        this.type = type;
+        this.fields = fields;
+    }
+
+    public static EventRecord parse(String line) {
+        String[] parts = line.split("\t");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Invalid event record: " + line);
+        }
+        Map<String, String> fields = new LinkedHashMap<String, String>();
+        for (int i = 2; i < parts.length; i++) {
+            int index = parts[i].indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Invalid event field: " + parts[i]);
+            }
+            fields.put(parts[i].substring(0, index), parts[i].substring(index + 1));
+        }
+        return new EventRecord(Long.parseLong(parts[0]), parts[1], fields);
+    }
+
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(height).append('\t').append(type);
+        for (Map.Entry<String, String> entry : fields.entrySet()) {
+            sb.append('\t').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    public EventRecord put(String name, Object value) {
+        fields.put(name, value == null ? "" : value.toString());
+        return this;
+    }
+
+    public EventRecord putList(String name, List<?> values) {
+        StringBuilder sb = new StringBuilder();
+        for (Object value : values) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(value);
+        }
+        fields.put(name, sb.toString());
+        return this;
+    }
+
+    public long getHeight() {
+        return height;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String get(String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field " + name + " in " + format());
+        }
+        return value;
+    }
+
+    public BigInteger getBigInteger(String name) {
+        return new BigInteger(get(name));
+    }
+
+    public boolean getBoolean(String name) {
+        return Boolean.parseBoolean(get(name));
+    }
+
+    public List<String> getList(String name) {
+        String value = get(name);
+        if (value.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> list = new ArrayList<String>();
+        Collections.addAll(list, value.split(","));
+        return list;
+    }
+}
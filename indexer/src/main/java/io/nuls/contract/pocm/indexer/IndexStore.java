@@ -0,0 +1,80 @@
+package io.nuls.contract.pocm.indexer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 以目录保存的索引: events.log为只追加的事件日志，state.snapshot为重放到某条记录时的状态快照
+ * 打开时先加载快照，再重放快照之后的事件
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class IndexStore {
+
+    public static final String EVENT_LOG = "events.log";
+    public static final String SNAPSHOT = "state.snapshot";
+
+    private final File dir;
+    private final EventLog eventLog;
+    private PocmIndexer indexer;
+
+    public IndexStore(File dir) {
+        this.dir = dir;
+        this.eventLog = new EventLog(new File(dir, EVENT_LOG));
+    }
+
+    public PocmIndexer open() throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create directory " + dir);
+        }
+        indexer = new PocmIndexer();
+        File snapshot = new File(dir, SNAPSHOT);
+        if (snapshot.exists()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(snapshot), StandardCharsets.UTF_8));
+            try {
+                indexer.readFrom(reader);
+            } finally {
+                reader.close();
+            }
+        }
+        indexer.applyAll(eventLog.read(indexer.getAppliedRecords()));
+        return indexer;
+    }
+
+    /**
+     * 追加新的事件并重放
+     */
+    public void append(List<EventRecord> records) throws IOException {
+        eventLog.append(records);
+        indexer.applyAll(records);
+    }
+
+    /**
+     * 保存快照，先写临时文件再替换，避免中断时留下不完整的快照
+     */
+    public void checkpoint() throws IOException {
+        File tmp = new File(dir, SNAPSHOT + ".tmp");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8);
+        try {
+            indexer.writeTo(writer);
+        } finally {
+            writer.close();
+        }
+        File snapshot = new File(dir, SNAPSHOT);
+        if (snapshot.exists() && !snapshot.delete()) {
+            throw new IOException("Cannot replace " + snapshot);
+        }
+        if (!tmp.renameTo(snapshot)) {
+            throw new IOException("Cannot replace " + snapshot);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.nuls.contract.pocm.indexer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 重放索引目录中的事件日志，保存快照，并查询用户的抵押金额和待领取奖励
+ * <p>
+ * 用法: java -jar pocmContract-indexer.jar dir [--height=区块高度] [--verify=expected.txt] [address...]
+ * <p>
+ * expected.txt的第一行为height=区块高度，之后每行为: 地址\t抵押金额\t待领取奖励，用户不存在时两项均为null
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class IndexerMain {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: IndexerMain dir [--height=N] [--verify=expected.txt] [address...]");
+            System.exit(2);
+        }
+        IndexStore store = new IndexStore(new File(args[0]));
+        long start = System.nanoTime();
+        PocmIndexer indexer = store.open();
+        store.checkpoint();
+        System.out.println("records=" + indexer.getAppliedRecords() + ", lastHeight=" + indexer.getLastHeight()
+                + ", endBlock=" + indexer.getEndBlock() + ", stakers=" + indexer.stakerCount()
+                + ", totalStake=" + indexer.totalStake() + ", lpSupply=" + indexer.getLpSupply()
+                + ", accPerShare=" + indexer.getAccPerShare() + ", distributed=" + indexer.getDistributed()
+                + ", elapsedMs=" + (System.nanoTime() - start) / 1000000L);
+
+        long height = indexer.getLastHeight();
+        String verifyFile = null;
+        List<String> addresses = new ArrayList<String>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].startsWith("--height=")) {
+                height = Long.parseLong(args[i].substring("--height=".length()));
+            } else if (args[i].startsWith("--verify=")) {
+                verifyFile = args[i].substring("--verify=".length());
+            } else {
+                addresses.add(args[i]);
+            }
+        }
+        for (String address : addresses) {
+            StakerState staker = indexer.getStaker(address);
+            System.out.println(address + "\t" + (staker == null ? null : staker.getAmount()) + "\t" + indexer.pendingToken(address, height));
+        }
+        if (verifyFile != null && !verify(indexer, new File(verifyFile))) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean verify(PocmIndexer indexer, File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        int checked = 0;
+        int mismatched = 0;
+        try {
+            long height = Long.parseLong(reader.readLine().substring("height=".length()));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split("\t");
+                StakerState staker = indexer.getStaker(parts[0]);
+                String amount = staker == null ? "null" : staker.getAmount().toString();
+                BigInteger pending = indexer.pendingToken(parts[0], height);
+                String pendingText = pending == null ? "null" : pending.toString();
+                checked++;
+                if (!parts[1].equals(amount) || !parts[2].equals(pendingText)) {
+                    mismatched++;
+                    System.out.println("mismatch " + parts[0] + ": expected " + parts[1] + "/" + parts[2] + ", indexed " + amount + "/" + pendingText);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        System.out.println("verified=" + checked + ", mismatched=" + mismatched);
+        return mismatched == 0;
+    }
+}
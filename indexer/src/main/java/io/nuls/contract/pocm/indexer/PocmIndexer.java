@@ -0,0 +1,360 @@
+package io.nuls.contract.pocm.indexer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按合约事件重放用户的抵押和奖励状态，rewardDebt的计算与合约的updateRewardDebt一致
+ * <p>
+ * 处理的事件: PocmCreateContract17Event, PocmPoolUpdateEvent, DepositDetailInfoEvent, PocmBatchDepositEvent, PocmWithdrawEvent,
+ * PocmQuitDepositEvent, CurrentMiningInfoEvent, PocmAgentEvent, PocmRemoveAgentEvent，其他事件忽略
+ * <p>
+ * 合约每次推进lastRewardBlock或重新计算endBlock时都会发出PocmPoolUpdateEvent，索引直接采用其中的accPerShare，
+ * 只在查询待领取奖励时按区块高度推算
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PocmIndexer {
+
+    public static final String CREATE = "PocmCreateContract17Event";
+    public static final String POOL_UPDATE = "PocmPoolUpdateEvent";
+    public static final String DEPOSIT = "DepositDetailInfoEvent";
+    public static final String BATCH_DEPOSIT = "PocmBatchDepositEvent";
+    public static final String WITHDRAW = "PocmWithdrawEvent";
+    public static final String EMERGENCY_WITHDRAW = "PocmQuitDepositEvent";
+    public static final String MINING = "CurrentMiningInfoEvent";
+    public static final String FORFEIT = "PocmRewardForfeitEvent";
+    public static final String ADD_AGENT = "PocmAgentEvent";
+    public static final String REMOVE_AGENT = "PocmRemoveAgentEvent";
+
+    private static final BigInteger _1e12 = BigInteger.TEN.pow(12);
+    private static final BigInteger TEN_THOUSAND = BigInteger.valueOf(10000);
+    private static final int LP_MODE = 1;
+    // 与合约创建时的初始结束高度一致
+    private static final long INITIAL_END_BLOCK_OFFSET = 12717449280L;
+
+    private BigInteger accPerShare = BigInteger.ZERO;
+    private long lastRewardBlock;
+    private long endBlock;
+    private BigInteger lpSupply = BigInteger.ZERO;
+    private BigInteger candyPerBlock = BigInteger.ZERO;
+    private int operatingModel;
+    private int rewardDrawRatioForLp;
+    // 已发放的奖励，含转入LP合约的部分
+    private BigInteger distributed = BigInteger.ZERO;
+    private long lastHeight;
+    private long appliedRecords;
+
+    private final Map<String, StakerState> stakers = new HashMap<String, StakerState>();
+    // 节点hash -> 节点创建者地址
+    private final Map<String, String> agents = new HashMap<String, String>();
+
+    public void applyAll(List<EventRecord> records) {
+        for (EventRecord record : records) {
+            this.apply(record);
+        }
+    }
+
+    public void apply(EventRecord record) {
+        long height = record.getHeight();
+        String type = record.getType();
+        if (CREATE.equals(type)) {
+            candyPerBlock = record.getBigInteger("candyPerBlock");
+            operatingModel = Integer.parseInt(record.get("operatingModel"));
+            rewardDrawRatioForLp = Integer.parseInt(record.get("rewardDrawRatioForLp"));
+            lastRewardBlock = height;
+            endBlock = height + INITIAL_END_BLOCK_OFFSET;
+        } else if (POOL_UPDATE.equals(type)) {
+            accPerShare = record.getBigInteger("accPerShare");
+            lastRewardBlock = Long.parseLong(record.get("lastRewardBlock"));
+            endBlock = Long.parseLong(record.get("endBlock"));
+        } else if (DEPOSIT.equals(type)) {
+            this.deposit(record.get("miningAddress"), record.getBigInteger("availableAmount"));
+        } else if (BATCH_DEPOSIT.equals(type)) {
+            List<String> addresses = record.getList("miningAddresses");
+            List<String> amounts = record.getList("depositAmounts");
+            for (int i = 0; i < addresses.size(); i++) {
+                this.deposit(addresses.get(i), new BigInteger(amounts.get(i)));
+            }
+        } else if (WITHDRAW.equals(type)) {
+            this.withdraw(record.get("user"), record.getBigInteger("amount"));
+        } else if (EMERGENCY_WITHDRAW.equals(type)) {
+            this.emergencyWithdraw(record.get("depositorAddress"));
+        } else if (MINING.equals(type)) {
+            List<String> receivers = record.getList("receivers");
+            List<String> amounts = record.getList("amounts");
+            for (int i = 0; i < receivers.size(); i++) {
+                this.paid(receivers.get(i), new BigInteger(amounts.get(i)));
+            }
+        } else if (FORFEIT.equals(type)) {
+            this.clearAccrued(record.get("user"));
+        } else if (ADD_AGENT.equals(type)) {
+            this.addAgent(record.get("hash"), record.getBigInteger("value"), record.getBoolean("openNodeAward"), record.get("agentAddress"));
+        } else if (REMOVE_AGENT.equals(type)) {
+            this.removeAgent(record.get("hash"), record.getBoolean("emergency"));
+        }
+        if (height > lastHeight) {
+            lastHeight = height;
+        }
+        appliedRecords++;
+    }
+
+    private void deposit(String address, BigInteger amount) {
+        StakerState staker = stakers.get(address);
+        if (staker == null) {
+            staker = new StakerState();
+            stakers.put(address, staker);
+        } else {
+            this.settle(staker);
+        }
+        staker.amount = staker.amount.add(amount);
+        staker.availableAmount = staker.availableAmount.add(amount);
+        lpSupply = lpSupply.add(amount);
+        this.updateRewardDebt(staker);
+    }
+
+    private void withdraw(String address, BigInteger amount) {
+        StakerState staker = this.require(address);
+        this.settle(staker);
+        staker.amount = staker.amount.subtract(amount);
+        staker.availableAmount = staker.availableAmount.subtract(amount);
+        lpSupply = lpSupply.subtract(amount);
+        this.updateRewardDebt(staker);
+        // 批量操作中奖励在退出之后发放，保留已结算奖励直到发放
+        if (staker.availableAmount.signum() == 0 && staker.agentAmount.signum() == 0 && staker.accruedReward.signum() == 0) {
+            stakers.remove(address);
+        }
+    }
+
+    /**
+     * 紧急退出不结算奖励
+     */
+    private void emergencyWithdraw(String address) {
+        StakerState staker = this.require(address);
+        BigInteger amount = staker.amount;
+        staker.amount = BigInteger.ZERO;
+        staker.availableAmount = staker.availableAmount.subtract(amount);
+        if (staker.availableAmount.signum() == 0 && staker.accruedReward.signum() == 0) {
+            stakers.remove(address);
+        } else {
+            this.updateRewardDebt(staker);
+        }
+        lpSupply = lpSupply.subtract(amount);
+    }
+
+    /**
+     * 发放奖励时合约先结算用户的全部奖励，发放后清空已结算奖励
+     */
+    private void paid(String address, BigInteger amount) {
+        distributed = distributed.add(amount);
+        this.clearAccrued(address);
+    }
+
+    /**
+     * 结算用户的全部奖励后清空已结算奖励，发放奖励和糖果不足不再发放时都是如此
+     */
+    private void clearAccrued(String address) {
+        StakerState staker = stakers.get(address);
+        // LP合约地址等非抵押用户
+        if (staker == null) {
+            return;
+        }
+        this.settle(staker);
+        this.updateRewardDebt(staker);
+        staker.accruedReward = BigInteger.ZERO;
+        if (staker.isEmpty()) {
+            stakers.remove(address);
+        }
+    }
+
+    private void addAgent(String agentHash, BigInteger value, boolean openNodeAward, String agentAddress) {
+        agents.put(agentHash, agentAddress);
+        BigInteger available = openNodeAward ? value : BigInteger.ZERO;
+        StakerState staker = stakers.get(agentAddress);
+        if (staker == null) {
+            staker = new StakerState();
+            stakers.put(agentAddress, staker);
+        } else {
+            this.settle(staker);
+        }
+        staker.availableAmount = staker.availableAmount.add(available);
+        staker.agentAmount = value;
+        staker.openNodeAward = openNodeAward;
+        lpSupply = lpSupply.add(available);
+        this.updateRewardDebt(staker);
+    }
+
+    /**
+     * 正常删除节点时先为节点创建者结算奖励，紧急删除时不结算
+     */
+    private void removeAgent(String agentHash, boolean emergency) {
+        String agentAddress = agents.remove(agentHash);
+        StakerState staker = agentAddress == null ? null : stakers.get(agentAddress);
+        if (staker == null) {
+            return;
+        }
+        if (!emergency) {
+            this.settle(staker);
+        }
+        if (staker.openNodeAward) {
+            staker.availableAmount = staker.availableAmount.subtract(staker.agentAmount);
+            lpSupply = lpSupply.subtract(staker.agentAmount);
+        }
+        if (staker.availableAmount.signum() > 0 || staker.accruedReward.signum() > 0) {
+            this.updateRewardDebt(staker);
+            staker.agentAmount = BigInteger.ZERO;
+            staker.openNodeAward = false;
+        } else {
+            stakers.remove(agentAddress);
+        }
+    }
+
+    private StakerState require(String address) {
+        StakerState staker = stakers.get(address);
+        if (staker == null) {
+            throw new IllegalStateException("Unknown staker " + address + " at record " + appliedRecords);
+        }
+        return staker;
+    }
+
+    private BigInteger accPerShareIncrement(long blockNumber) {
+        BigInteger reward = BigInteger.valueOf(blockNumber - lastRewardBlock).multiply(candyPerBlock);
+        return reward.multiply(_1e12).divide(lpSupply);
+    }
+
+    private void settle(StakerState staker) {
+        BigInteger pending = this.pendingReward(staker, accPerShare);
+        if (pending.signum() > 0) {
+            staker.accruedReward = staker.accruedReward.add(pending);
+        }
+    }
+
+    private void updateRewardDebt(StakerState staker) {
+        staker.rewardDebt = staker.availableAmount.multiply(accPerShare).divide(_1e12);
+    }
+
+    private BigInteger pendingReward(StakerState staker, BigInteger acc) {
+        BigInteger reward = staker.availableAmount.multiply(acc).divide(_1e12);
+        BigInteger pending = reward.subtract(staker.rewardDebt);
+        return pending.signum() > 0 ? pending : BigInteger.ZERO;
+    }
+
+    /**
+     * 与合约的pendingToken一致: 按blockNumber推算池子的累计奖励，LP模式下扣除LP抽取的部分
+     *
+     * @return 用户不存在时返回null
+     */
+    public BigInteger pendingToken(String address, long blockNumber) {
+        StakerState staker = stakers.get(address);
+        if (staker == null) {
+            return null;
+        }
+        BigInteger acc = accPerShare;
+        blockNumber = blockNumber < endBlock ? blockNumber : endBlock;
+        if (blockNumber > lastRewardBlock && lpSupply.signum() > 0) {
+            acc = acc.add(this.accPerShareIncrement(blockNumber));
+        }
+        BigInteger pending = this.pendingReward(staker, acc).add(staker.accruedReward);
+        if (operatingModel == LP_MODE) {
+            BigInteger lpShare = pending.multiply(BigInteger.valueOf(rewardDrawRatioForLp)).divide(TEN_THOUSAND);
+            return pending.subtract(lpShare);
+        }
+        return pending;
+    }
+
+    public StakerState getStaker(String address) {
+        return stakers.get(address);
+    }
+
+    public Map<String, StakerState> getStakers() {
+        return stakers;
+    }
+
+    public int stakerCount() {
+        return stakers.size();
+    }
+
+    public BigInteger totalStake() {
+        BigInteger total = BigInteger.ZERO;
+        for (StakerState staker : stakers.values()) {
+            total = total.add(staker.amount);
+        }
+        return total;
+    }
+
+    public BigInteger getAccPerShare() {
+        return accPerShare;
+    }
+
+    public BigInteger getLpSupply() {
+        return lpSupply;
+    }
+
+    public BigInteger getDistributed() {
+        return distributed;
+    }
+
+    public long getEndBlock() {
+        return endBlock;
+    }
+
+    public long getLastHeight() {
+        return lastHeight;
+    }
+
+    public long getAppliedRecords() {
+        return appliedRecords;
+    }
+
+    /**
+     * 保存快照，每行一项，字段以\t分隔
+     */
+    void writeTo(Writer writer) throws IOException {
+        writer.write("pool\t" + accPerShare + '\t' + lastRewardBlock + '\t' + endBlock + '\t' + lpSupply + '\t' + candyPerBlock
+                + '\t' + operatingModel + '\t' + rewardDrawRatioForLp + '\t' + distributed + '\t' + lastHeight + '\t' + appliedRecords + '\n');
+        for (Map.Entry<String, String> entry : agents.entrySet()) {
+            writer.write("agent\t" + entry.getKey() + '\t' + entry.getValue() + '\n');
+        }
+        for (Map.Entry<String, StakerState> entry : stakers.entrySet()) {
+            StakerState staker = entry.getValue();
+            writer.write("staker\t" + entry.getKey() + '\t' + staker.amount + '\t' + staker.availableAmount + '\t' + staker.agentAmount
+                    + '\t' + staker.rewardDebt + '\t' + staker.accruedReward + '\t' + staker.openNodeAward + '\n');
+        }
+    }
+
+    void readFrom(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.split("\t");
+            if ("pool".equals(parts[0])) {
+                accPerShare = new BigInteger(parts[1]);
+                lastRewardBlock = Long.parseLong(parts[2]);
+                endBlock = Long.parseLong(parts[3]);
+                lpSupply = new BigInteger(parts[4]);
+                candyPerBlock = new BigInteger(parts[5]);
+                operatingModel = Integer.parseInt(parts[6]);
+                rewardDrawRatioForLp = Integer.parseInt(parts[7]);
+                distributed = new BigInteger(parts[8]);
+                lastHeight = Long.parseLong(parts[9]);
+                appliedRecords = Long.parseLong(parts[10]);
+            } else if ("agent".equals(parts[0])) {
+                agents.put(parts[1], parts[2]);
+            } else if ("staker".equals(parts[0])) {
+                StakerState staker = new StakerState();
+                staker.amount = new BigInteger(parts[2]);
+                staker.availableAmount = new BigInteger(parts[3]);
+                staker.agentAmount = new BigInteger(parts[4]);
+                staker.rewardDebt = new BigInteger(parts[5]);
+                staker.accruedReward = new BigInteger(parts[6]);
+                staker.openNodeAward = Boolean.parseBoolean(parts[7]);
+                stakers.put(parts[1], staker);
+            }
+        }
+    }
+}
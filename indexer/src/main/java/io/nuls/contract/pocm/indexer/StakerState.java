@@ -0,0 +1,51 @@
+package io.nuls.contract.pocm.indexer;
+
+import java.math.BigInteger;
+
+/**
+ * 用户的抵押状态，与合约中UserInfo的字段一致
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class StakerState {
+
+    // 用户抵押的金额
+    BigInteger amount = BigInteger.ZERO;
+    // 参与奖励计算的金额，含开启节点奖励时节点创建者的保证金
+    BigInteger availableAmount = BigInteger.ZERO;
+    // 节点创建者的保证金
+    BigInteger agentAmount = BigInteger.ZERO;
+    BigInteger rewardDebt = BigInteger.ZERO;
+    // 已结算未发放的奖励
+    BigInteger accruedReward = BigInteger.ZERO;
+    boolean openNodeAward;
+
+    public BigInteger getAmount() {
+        return amount;
+    }
+
+    public BigInteger getAvailableAmount() {
+        return availableAmount;
+    }
+
+    public BigInteger getAgentAmount() {
+        return agentAmount;
+    }
+
+    public BigInteger getRewardDebt() {
+        return rewardDebt;
+    }
+
+    public BigInteger getAccruedReward() {
+        return accruedReward;
+    }
+
+    public boolean isOpenNodeAward() {
+        return openNodeAward;
+    }
+
+    boolean isEmpty() {
+        return amount.signum() == 0 && availableAmount.signum() == 0 && agentAmount.signum() == 0;
+    }
+}
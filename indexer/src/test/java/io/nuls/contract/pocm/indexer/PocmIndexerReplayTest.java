@@ -0,0 +1,105 @@
+package io.nuls.contract.pocm.indexer;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigInteger;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 重放benchmark模块EventLogRecorder录制的事件日志，与录制时合约视图(getDepositInfo、pendingToken)的结果对比
+ * <p>
+ * 日志在src/test/resources/replay下，合约事件变化后重新录制:
+ * EventLogRecorder dir 40 600 1 (normal)、EventLogRecorder dir 40 600 2 lp (lp)、EventLogRecorder dir 40 600 3 drain (drain)
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PocmIndexerReplayTest {
+
+    @Test
+    public void replayMatchesContractViews() throws Exception {
+        assertMatches("normal", this.replay("normal"));
+    }
+
+    @Test
+    public void replayMatchesContractViewsInLpMode() throws Exception {
+        assertMatches("lp", this.replay("lp"));
+    }
+
+    /**
+     * 执行到一半时转出全部糖果，之后的领取按PocmRewardForfeitEvent清空用户的已结算奖励
+     */
+    @Test
+    public void replayMatchesContractViewsAfterCandyRunsOut() throws Exception {
+        assertMatches("drain", this.replay("drain"));
+    }
+
+    /**
+     * 重放到一半时保存快照，从快照恢复后重放剩余的记录，结果与一次重放完全相同
+     */
+    @Test
+    public void snapshotRestoresReplayState() throws Exception {
+        List<EventRecord> records = new EventLog(this.resource("normal", "events.log")).read(0);
+        PocmIndexer first = new PocmIndexer();
+        first.applyAll(records.subList(0, records.size() / 2));
+        StringWriter snapshot = new StringWriter();
+        first.writeTo(snapshot);
+
+        PocmIndexer restored = new PocmIndexer();
+        restored.readFrom(new BufferedReader(new StringReader(snapshot.toString())));
+        restored.applyAll(records.subList(records.size() / 2, records.size()));
+        assertEquals(records.size(), restored.getAppliedRecords());
+        assertMatches("normal", restored);
+    }
+
+    private PocmIndexer replay(String name) throws IOException, URISyntaxException {
+        PocmIndexer indexer = new PocmIndexer();
+        indexer.applyAll(new EventLog(this.resource(name, "events.log")).read(0));
+        return indexer;
+    }
+
+    private void assertMatches(String name, PocmIndexer indexer) throws IOException, URISyntaxException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(this.resource(name, "expected.txt")), StandardCharsets.UTF_8));
+        List<String> mismatches = new ArrayList<String>();
+        int checked = 0;
+        try {
+            long height = Long.parseLong(reader.readLine().substring("height=".length()));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split("\t");
+                StakerState staker = indexer.getStaker(parts[0]);
+                BigInteger pending = indexer.pendingToken(parts[0], height);
+                String actual = (staker == null ? "null" : staker.getAmount().toString()) + "/" + (pending == null ? "null" : pending.toString());
+                if (!(parts[1] + "/" + parts[2]).equals(actual)) {
+                    mismatches.add(parts[0] + ": expected " + parts[1] + "/" + parts[2] + ", indexed " + actual);
+                }
+                checked++;
+            }
+        } finally {
+            reader.close();
+        }
+        assertTrue(name + ": empty expected file", checked > 0);
+        assertEquals(name + ": " + mismatches, 0, mismatches.size());
+    }
+
+    private File resource(String name, String file) throws URISyntaxException {
+        return new File(this.getClass().getResource("/replay/" + name + "/" + file).toURI());
+    }
+}
@@ -4,13 +4,18 @@ import io.nuls.contract.pocm.event.*;
 import io.nuls.contract.pocm.manager.ConsensusManager;
 import io.nuls.contract.pocm.manager.PocmInfo;
 import io.nuls.contract.pocm.manager.TotalDepositManager;
+import io.nuls.contract.pocm.manager.UserInfoManager;
+import io.nuls.contract.pocm.model.AgentSnapshot;
+import io.nuls.contract.pocm.model.BatchCursor;
 import io.nuls.contract.pocm.model.ConsensusAgentDepositInfo;
 import io.nuls.contract.pocm.model.CurrentMingInfo;
+import io.nuls.contract.pocm.model.UserDepositInfo;
 import io.nuls.contract.pocm.model.UserInfo;
 import io.nuls.contract.pocm.ownership.Ownable;
 import io.nuls.contract.pocm.util.AssetWrapper;
 import io.nuls.contract.pocm.util.NRC20Wrapper;
 import io.nuls.contract.pocm.util.PocmUtil;
+import io.nuls.contract.pocm.util.UInt128;
 import io.nuls.contract.sdk.*;
 import io.nuls.contract.sdk.annotation.*;
 
@@ -29,13 +34,17 @@ public class PocmContract extends Ownable implements Contract {
     // POCM合约修订版本
     private final String VERSION = "V19";
     private PocmInfo pi = new PocmInfo();// 合约基础信息
-    private Map<String, UserInfo> userInfo = new HashMap<String, UserInfo>();
+    private UserInfoManager userInfo = new UserInfoManager();
     private BigInteger allocationAmount = BigInteger.ZERO;//已经分配的Token数量
     private TotalDepositManager totalDepositManager;// 总抵押金额管理器
     private ConsensusManager consensusManager;// 共识管理器
     private boolean isAllocationToken = false;//项目是否初始分配了糖果token
     private boolean isAcceptStaking = false;//是否接受质押
     private Map<String, ConsensusAgentDepositInfo> agentDeposits = new HashMap<String, ConsensusAgentDepositInfo>();
+    // 分批处理所有用户的游标
+    private BatchCursor receiveCursor = new BatchCursor();
+    private BatchCursor quitCursor = new BatchCursor();
+    private BatchCursor giveUpCursor = new BatchCursor();
 
     /**
      * 注意: 如果糖果是NRC20资产，那么 candyAssetChainId 和 candyAssetId 要设置为0
@@ -112,7 +121,7 @@ public class PocmContract extends Ownable implements Contract {
         }
         pi.openAwardConsensusNodeProvider = openAwardConsensusNodeProvider;
         pi.authorizationCode = authorizationCode;
-        pi.accPerShare = BigInteger.ZERO;
+        pi.accPerShare = new UInt128();
         pi.lockedTime = pi.lockedTokenDay * pi.TIMEPERDAY;
         pi.lastRewardBlock = Block.number();
         pi.endBlock = Block.number() + 12717449280L;
@@ -143,6 +152,27 @@ public class PocmContract extends Ownable implements Contract {
         require(values.length == 1, "transfer: asset not good");
         MultyAssetValue value = values[0];
         require(value.getAssetChainId() == pi.candyAssetChainId && value.getAssetId() == pi.candyAssetId, "transfer: asset not good");
+        pi.addCandyBalance(value.getValue());
+    }
+
+    /**
+     * 转入NRC20糖果，需先授权(approve)本合约
+     *
+     * @param value 转入的糖果数量
+     */
+    public void topUpCandy(BigInteger value) {
+        require(pi.isNRC20Candy, "transfer: candy is not NRC20 asset");
+        require(value.compareTo(BigInteger.ZERO) > 0, "transfer: amount not good");
+        boolean success = pi.candyTokenWrapper.transferFrom(Msg.sender(), Msg.address(), value);
+        require(success, "transfer: transferFrom failed");
+        pi.addCandyBalance(value);
+    }
+
+    /**
+     * 按链上余额校正合约的糖果记账，用于直接转入合约的NRC20糖果
+     */
+    public void reconcileCandyBalance() {
+        pi.reconcileCandyBalance();
     }
 
     /**
@@ -164,6 +194,44 @@ public class PocmContract extends Ownable implements Contract {
         emit(new PocmCandySupplyEvent(pi.candySupply));
     }
 
+    /**
+     * 设置奖励自动发放的阈值，质押、部分退出时结算的奖励达到阈值才发放，否则记入用户的已结算奖励，等待用户领取
+     *
+     * @param threshold 0代表每次都发放
+     */
+    public void updateRewardClaimThreshold(BigInteger threshold) {
+        onlyOwnerOrOfficial();
+        require(threshold.compareTo(BigInteger.ZERO) >= 0, "update: threshold not good");
+        pi.rewardClaimThreshold = threshold;
+    }
+
+    /**
+     * 设置LP抽取糖果的转入阈值
+     *
+     * @param threshold 0代表每次领取都转入
+     */
+    public void updateLpFlushThreshold(BigInteger threshold) {
+        onlyOwnerOrOfficial();
+        require(threshold.compareTo(BigInteger.ZERO) >= 0, "update: threshold not good");
+        pi.lpFlushThreshold = threshold;
+    }
+
+    /**
+     * 把累计的LP抽取糖果转入LP合约
+     */
+    public void flushLpShare() {
+        require(pi.operatingModel == LP_MODE, "Not LP mode");
+        require(pi.pendingLpShare.compareTo(BigInteger.ZERO) > 0, "No pending lp share");
+        ArrayList<CurrentMingInfo> list = new ArrayList<CurrentMingInfo>();
+        this.flushLpShareInner(list);
+        emit(new CurrentMiningInfoEvent(list));
+    }
+
+    @View
+    public String pendingLpShare() {
+        return pi.pendingLpShare.toString();
+    }
+
     public void updateMaximumStaking(BigInteger maximumStaking) {
         onlyOwnerOrOfficial();
         require(maximumStaking.compareTo(pi.minimumStaking) >= 0, "update: maximumStaking not good");
@@ -176,9 +244,6 @@ public class PocmContract extends Ownable implements Contract {
 
     @Payable
     public void depositForOwn() {
-        require(isAllocationToken(), "No enough candy token in the contract");
-        require(isAcceptStaking(), "Cannot staking, please check the contract");
-        require(!isEnd(), "Cannot staking, pool has ended");
         Address sender = Msg.sender();
         String senderAddress = sender.toString();
         UserInfo user = this.userInfo.get(senderAddress);
@@ -194,40 +259,160 @@ public class PocmContract extends Ownable implements Contract {
             _amount = _amount.subtract(decimalValue);
             require(decimalValue.add(_amount).compareTo(Msg.value()) == 0, "Decimal parsing error, staking: " + Msg.value());
         }
-        require(_amount.compareTo(pi.minimumStaking) >= 0, "amount not good[minimum]");
-        require(_amount.compareTo(pi.maximumStaking) <= 0, "amount not good[maximum]");
+        this.checkStakingAmount(_amount);
         updatePool();
         if (user != null) {
-            // 领取奖励
-            this.receiveInternal(sender, user);
+            // 结算奖励，达到阈值时发放
+            this.accrueInternal(sender, user);
         }
 
-        // 90% available for staking
-        //BigDecimal bigDecimalValue = new BigDecimal(_amount);
-        //BigInteger availableAmount = AVAILABLE_PERCENT.multiply(bigDecimalValue).toBigInteger();
-        // 100% available for staking
-        BigInteger availableAmount = _amount;
-        long blockNumber = Block.number();
-
-        if (user == null) {
-            user = new UserInfo(_amount, availableAmount, BigInteger.ZERO, blockNumber);
-            this.userInfo.put(senderAddress, user);
-        } else {
-            user.addAmount(_amount, availableAmount);
-            user.setLastDepositHeight(blockNumber);
-        }
-        require(user.getAmount().compareTo(pi.maximumStaking) <= 0, "user amount not good[maximum]");
-        pi.addLpSupply(availableAmount);
-        user.setRewardDebt(user.getAvailableAmount().multiply(pi.accPerShare).divide(pi._1e12));
+        this.addStake(senderAddress, user, _amount);
 
-        totalDepositManager.add(availableAmount);
+        totalDepositManager.add(_amount);
 
         // 退还抵押金的小数位
         if (hasDecimal) {
             sender.transfer(decimalValue);
         }
         // 抵押事件
-        emit(new DepositDetailInfoEvent(_amount, 0, _amount, availableAmount, _amount.subtract(availableAmount), blockNumber, senderAddress));
+        emit(new DepositDetailInfoEvent(_amount, 0, _amount, _amount, BigInteger.ZERO, Block.number(), senderAddress));
+    }
+
+    /**
+     * 代多个地址抵押，转入的金额需等于各地址抵押金额之和；各金额的小数位合并后一次退还给调用者
+     *
+     * @param addresses 抵押地址，不能重复
+     * @param amounts   对应的抵押金额
+     */
+    @Payable
+    public void depositForMany(String[] addresses, BigInteger[] amounts) {
+        require(addresses != null && addresses.length > 0, "depositForMany: empty addresses");
+        require(amounts != null && addresses.length == amounts.length, "depositForMany: addresses and amounts not match");
+        Address sender = Msg.sender();
+        updatePool();
+        BigInteger total = BigInteger.ZERO;
+        BigInteger stakeTotal = BigInteger.ZERO;
+        List<String> miningAddresses = new ArrayList<String>(addresses.length);
+        List<BigInteger> depositAmounts = new ArrayList<BigInteger>(addresses.length);
+        Set<String> addressSet = new HashSet<String>();
+        for (int i = 0; i < addresses.length; i++) {
+            BigInteger amount = amounts[i];
+            require(amount != null && amount.compareTo(BigInteger.ZERO) > 0, "depositForMany: amount not good, " + addresses[i]);
+            total = total.add(amount);
+            // 去除小数位
+            BigInteger _amount = amount.subtract(PocmUtil.extractDecimal(amount));
+            this.checkStakingAmount(_amount);
+            Address address = new Address(addresses[i]);
+            String userAddress = address.toString();
+            // 同一地址只能出现一次，合并事件中每个地址对应一笔抵押
+            require(addressSet.add(userAddress), "depositForMany: duplicate address, " + userAddress);
+            UserInfo user = this.userInfo.get(userAddress);
+            if (user != null) {
+                // 结算奖励，达到阈值时发放
+                this.accrueInternal(address, user);
+            }
+            this.addStake(userAddress, user, _amount);
+            stakeTotal = stakeTotal.add(_amount);
+            miningAddresses.add(userAddress);
+            depositAmounts.add(_amount);
+        }
+        require(total.compareTo(Msg.value()) == 0, "depositForMany: value not good, expect " + total);
+        BigInteger decimalValue = total.subtract(stakeTotal);
+        // 防止退回的小数金额太小
+        require(decimalValue.compareTo(BigInteger.ZERO) == 0 || decimalValue.compareTo(MININUM_TRANSFER_AMOUNT) >= 0,
+                "depositForMany: decimal refund too small, " + decimalValue);
+
+        totalDepositManager.add(stakeTotal);
+
+        // 退还抵押金的小数位
+        if (decimalValue.compareTo(BigInteger.ZERO) > 0) {
+            sender.transfer(decimalValue);
+        }
+        // 合并的抵押事件
+        emit(new PocmBatchDepositEvent(sender.toString(), miningAddresses, depositAmounts, stakeTotal, Block.number()));
+    }
+
+    /**
+     * 在一笔交易内依次执行调用者的多个操作，任一操作失败则整笔交易回滚
+     * 奖励在开始时结算一次，需要发放的奖励在最后合并发放；各操作的抵押金变化合并后只调整一次总抵押金，退出的抵押金合并为一次转账
+     *
+     * @param operations 操作列表: deposit:金额、withdraw:金额、receive，金额单位为NA，deposit的金额合计需等于转入的金额
+     */
+    @Payable
+    public void multicall(String[] operations) {
+        require(operations != null && operations.length > 0, "multicall: empty operations");
+        require(operations.length <= MULTICALL_MAX_OPERATIONS, "multicall: too many operations");
+        Address sender = Msg.sender();
+        String senderAddress = sender.toString();
+        updatePool();
+        UserInfo user = this.userInfo.get(senderAddress);
+        if (user != null) {
+            this.settleReward(user);
+            user.updateRewardDebt(pi.accPerShare);
+        }
+        BigInteger depositTotal = BigInteger.ZERO;
+        BigInteger withdrawTotal = BigInteger.ZERO;
+        boolean receive = false;
+        for (String operation : operations) {
+            require(operation != null, "multicall: empty operation");
+            int index = operation.indexOf(':');
+            String type = index < 0 ? operation : operation.substring(0, index);
+            if ("receive".equals(type)) {
+                require(user != null, "user not exist");
+                receive = true;
+            } else if ("deposit".equals(type)) {
+                BigInteger _amount = this.multicallAmount(operation, index);
+                this.checkStakingAmount(_amount);
+                require(extractDecimal(_amount).compareTo(BigInteger.ZERO) == 0, "multicall: floating point numbers are not allowed, " + operation);
+                user = this.addStake(senderAddress, user, _amount);
+                depositTotal = depositTotal.add(_amount);
+                emit(new DepositDetailInfoEvent(_amount, 0, _amount, _amount, BigInteger.ZERO, Block.number(), senderAddress));
+            } else if ("withdraw".equals(type)) {
+                BigInteger _amount = this.multicallAmount(operation, index);
+                require(user != null, "user not exist");
+                this.subtractStake(user, _amount);
+                withdrawTotal = withdrawTotal.add(_amount);
+                emit(new PocmWithdrawEvent(senderAddress, _amount.toString()));
+            } else {
+                revert("multicall: unknown operation, " + operation);
+            }
+        }
+        require(depositTotal.compareTo(Msg.value()) == 0, "multicall: value not good, expect " + depositTotal);
+        // 合并调整总抵押金
+        int diff = depositTotal.compareTo(withdrawTotal);
+        if (diff > 0) {
+            totalDepositManager.add(depositTotal.subtract(withdrawTotal));
+        } else if (diff < 0) {
+            BigInteger available = withdrawTotal.subtract(depositTotal);
+            boolean isEnoughBalance = totalDepositManager.subtract(available);
+            require(isEnoughBalance, "The balance is not enough to refund the staking, please contact the project party, the staking: " + available);
+        }
+        if (withdrawTotal.compareTo(BigInteger.ZERO) > 0) {
+            sender.transfer(withdrawTotal);
+        }
+        if (user != null) {
+            // 领取、全部退出或已结算奖励达到阈值时发放
+            if (receive || user.getAmount() == 0 || user.getAccruedReward().compareTo(pi.rewardClaimThreshold) >= 0) {
+                this.payAccruedReward(sender, user);
+            }
+            if (user.getAmount() == 0 && user.getAvailableAmount() == 0 && user.getAgentAmount() == 0 && !user.hasAccruedReward()) {
+                this.userInfo.remove(senderAddress);
+            }
+        }
+    }
+
+    /**
+     * 解析multicall操作中的金额，格式为 操作:金额，金额为不带符号的十进制整数
+     *
+     * @param index 操作中':'的位置
+     */
+    private BigInteger multicallAmount(String operation, int index) {
+        require(index > 0 && index < operation.length() - 1, "multicall: amount required, " + operation);
+        for (int i = index + 1; i < operation.length(); i++) {
+            char c = operation.charAt(i);
+            require(c >= '0' && c <= '9', "multicall: amount not good, " + operation);
+        }
+        return new BigInteger(operation.substring(index + 1));
     }
 
     public void receiveAwards(String unused) {
@@ -240,8 +425,7 @@ public class PocmContract extends Ownable implements Contract {
         UserInfo user = this.userInfo.get(addressStr);
         require(user != null, "user not exist");
         updatePool();
-        this.receiveInternal(address, user);
-        user.setRewardDebt(user.getAvailableAmount().multiply(pi.accPerShare).divide(pi._1e12));
+        this.receiveAccrued(address, user);
     }
 
     // Withdraw LP tokens from pool.
@@ -273,11 +457,11 @@ public class PocmContract extends Ownable implements Contract {
         String senderAddress = sender.toString();
         UserInfo user = this.userInfo.get(senderAddress);
         require(user != null, "user not exist");
-        this.withdrawByUser(sender, user, user.getAmount());
+        this.withdrawByUser(sender, user, BigInteger.valueOf(user.getAmount()));
     }
 
     public void updateTotalAllocation() {
-        BigInteger balance = pi.candyTokenWrapper.balanceOf(Msg.address());
+        BigInteger balance = pi.reconcileCandyBalance();
         if (balance.compareTo(BigInteger.ZERO) > 0) {
             this.isAcceptStaking = true;
         } else {
@@ -298,6 +482,7 @@ public class PocmContract extends Ownable implements Contract {
         onlyOfficial();
         BigInteger blockCount = value.divide(pi.candyPerBlock);
         pi.endBlock += blockCount.longValue();
+        pi.emitPoolUpdate();
     }
     /**
      * 开启共识获得糖果奖励
@@ -335,6 +520,18 @@ public class PocmContract extends Ownable implements Contract {
         consensusManager.modifyMinJoinDeposit(value);
     }
 
+    /**
+     * 设置流动性储备，可用金额中保留储备部分不委托，小额退出无需退出共识委托
+     *
+     * @param ratio  占共识管理总金额的比例，万分位
+     * @param amount 固定储备金额，与按比例计算的储备取较大值
+     */
+    public void modifyLiquidityReserve(int ratio, BigInteger amount) {
+        onlyOwnerOrOfficial();
+        require(pi.openConsensus, "Consensus is not turned on");
+        consensusManager.modifyLiquidityReserve(ratio, amount);
+    }
+
     public void consensusWithdrawSpecifiedAmount(BigInteger value) {
         onlyOfficial();
         require(pi.openConsensus, "Consensus is not turned on");
@@ -366,6 +563,59 @@ public class PocmContract extends Ownable implements Contract {
         consensusManager.depositManually();
     }
 
+    /**
+     * 设置选择委托节点的策略
+     *
+     * @param depositPolicy 0-依次遍历节点，1-优先填满节点，2-平均分散到各节点
+     */
+    public void modifyDepositPolicy(int depositPolicy) {
+        onlyOwnerOrOfficial();
+        require(pi.openConsensus, "Consensus is not turned on");
+        consensusManager.modifyDepositPolicy(depositPolicy);
+    }
+
+    /**
+     * 设置退出委托的策略
+     *
+     * @param withdrawPolicy 0-逐笔选择委托，1-按计划选出交易数量最少、闲置金额最少的一组委托
+     */
+    public void modifyWithdrawPolicy(int withdrawPolicy) {
+        onlyOwnerOrOfficial();
+        require(pi.openConsensus, "Consensus is not turned on");
+        consensusManager.modifyWithdrawPolicy(withdrawPolicy);
+    }
+
+    /**
+     * 开启后用户质押、退出时不再立即委托共识节点，闲置的抵押金由flushConsensusDeposits统一委托
+     */
+    public void modifyDeferConsensusDeposit(boolean deferDeposit) {
+        onlyOwnerOrOfficial();
+        require(pi.openConsensus, "Consensus is not turned on");
+        consensusManager.modifyDeferDeposit(deferDeposit);
+    }
+
+    /**
+     * 把累计的闲置抵押金合并委托到共识节点，任何人都可调用，金额不足时不做处理
+     *
+     * @return 实际委托的金额
+     */
+    public BigInteger flushConsensusDeposits() {
+        require(pi.openConsensus, "Consensus is not turned on");
+        return consensusManager.flushDeposits();
+    }
+
+    /**
+     * 合并同一共识节点上的多笔小额委托，每次调用最多退出maxWithdrawals笔委托
+     *
+     * @param maxWithdrawals 本次最多退出的委托数量
+     * @return 被合并掉的委托数量
+     */
+    public int consolidateConsensusDeposits(int maxWithdrawals) {
+        onlyOwnerOrOfficial();
+        require(pi.openConsensus, "Consensus is not turned on");
+        return consensusManager.consolidateDeposits(maxWithdrawals);
+    }
+
     /**
      * 合约拥有者获取共识奖励金额
      */
@@ -385,14 +635,13 @@ public class PocmContract extends Ownable implements Contract {
         require(pi.openConsensus, "Consensus is not turned on");
         require(isAllocationToken() && isAcceptStaking(), "No enough candy token in the contract");
         require(!isEnd(), "Pool has ended");
-        String[] agentInfo = consensusManager.addOtherAgent(agentHash);
-        String agentAddress = agentInfo[0];
+        AgentSnapshot agentInfo = consensusManager.addOtherAgent(agentHash);
+        String agentAddress = agentInfo.getAgentAddress();
         Collection<ConsensusAgentDepositInfo> agentDepositInfos = agentDeposits.values();
         for (ConsensusAgentDepositInfo agentDepositInfo : agentDepositInfos) {
             require(!agentDepositInfo.getDepositorAddress().equals(agentAddress), "The creator address of the node being added conflicts with the creator address of the added node");
         }
-        BigInteger agentValue = new BigInteger(agentInfo[3]);
-        emit(new PocmAgentEvent(agentHash, agentValue, pi.openAwardConsensusNodeProvider));
+        BigInteger agentValue = agentInfo.getDeposit();
         BigInteger availableValue = agentValue;
         // 不给节点提供者奖励
         if (!pi.openAwardConsensusNodeProvider) {
@@ -402,22 +651,24 @@ public class PocmContract extends Ownable implements Contract {
         long currentHeight = Block.number();
         UserInfo user = this.userInfo.get(agentAddress);
         if (user == null) {
-            user = new UserInfo(BigInteger.ZERO, availableValue, BigInteger.ZERO, currentHeight);
-            user.setAgentAmount(agentValue);
+            user = new UserInfo(0, toLongNa(availableValue), currentHeight);
+            user.setAgentAmount(toLongNa(agentValue));
             this.userInfo.put(agentAddress, user);
         } else {
-            // 存在抵押记录，领取奖励
-            this.receiveInternal(new Address(agentAddress), user);
+            // 存在抵押记录，结算奖励
+            this.accrueInternal(new Address(agentAddress), user);
             //更新抵押信息
-            user.addAmount(BigInteger.ZERO, availableValue);
-            user.setAgentAmount(agentValue);
+            user.addAmount(0, toLongNa(availableValue));
+            user.setAgentAmount(toLongNa(agentValue));
         }
         user.setOpenNodeAward(pi.openAwardConsensusNodeProvider);
         pi.addLpSupply(availableValue);
-        user.setRewardDebt(user.getAvailableAmount().multiply(pi.accPerShare).divide(pi._1e12));
+        user.updateRewardDebt(pi.accPerShare);
 
         ConsensusAgentDepositInfo agentDepositInfo = new ConsensusAgentDepositInfo(agentHash, agentAddress, 0);
         agentDeposits.put(agentHash, agentDepositInfo);
+        // 在更新池子、结算节点创建者的奖励之后发出，与链下索引的重放顺序一致
+        emit(new PocmAgentEvent(agentHash, agentValue, pi.openAwardConsensusNodeProvider, agentAddress));
     }
 
     /**
@@ -443,23 +694,20 @@ public class PocmContract extends Ownable implements Contract {
 
     public void quitAll() {
         onlyOwnerOrOfficial();
-        require(consensusManager.getAgents() == null, "Please remove the consensus node first");
-        boolean hasAgents = !agentDeposits.isEmpty();
-        Set<String> skippedSet = new HashSet<String>();
-        if (hasAgents) {
-            Collection<ConsensusAgentDepositInfo> agentDepositInfos = agentDeposits.values();
-            for (ConsensusAgentDepositInfo info : agentDepositInfos) {
-                skippedSet.add(info.getDepositorAddress());
-            }
-        }
-        Set<String> userSet = this.userInfo.keySet();
-        List<String> userList = new ArrayList<String>(userSet);
-        for (String user : userList) {
-            if (hasAgents && skippedSet.contains(user)) {
-                continue;
-            }
-            this.quitByUser(user);
-        }
+        this.requireNoAgents();
+        this.processAll(BATCH_QUIT);
+    }
+
+    /**
+     * 分批退出所有用户的抵押，重复调用直到返回0
+     *
+     * @param maxUsers 本次调用最多处理的用户数量
+     * @return 本轮剩余未处理的用户数量
+     */
+    public int quitAllBatch(int maxUsers) {
+        onlyOwnerOrOfficial();
+        this.requireNoAgents();
+        return this.processBatch(quitCursor, BATCH_QUIT, maxUsers);
     }
 
     public void quitByAddresses(String[] addresses) {
@@ -469,12 +717,26 @@ public class PocmContract extends Ownable implements Contract {
         }
     }
 
+    /**
+     * 按地址退出抵押，跳过不存在的用户和共识节点的创建者，结果以PocmBatchSummaryEvent通知
+     */
+    public void tryQuitByAddresses(String[] addresses) {
+        onlyOwnerOrOfficial();
+        this.processAddresses(BATCH_QUIT, addresses);
+    }
+
     public void receiveAll() {
-        Set<String> userSet = this.userInfo.keySet();
-        List<String> userList = new ArrayList<String>(userSet);
-        for (String user : userList) {
-            this.receiveAwardsByAddress(new Address(user));
-        }
+        this.processAll(BATCH_RECEIVE);
+    }
+
+    /**
+     * 分批领取所有用户的奖励，重复调用直到返回0
+     *
+     * @param maxUsers 本次调用最多处理的用户数量
+     * @return 本轮剩余未处理的用户数量
+     */
+    public int receiveAllBatch(int maxUsers) {
+        return this.processBatch(receiveCursor, BATCH_RECEIVE, maxUsers);
     }
 
     public void receiveByAddresses(String[] addresses) {
@@ -483,25 +745,29 @@ public class PocmContract extends Ownable implements Contract {
         }
     }
 
+    /**
+     * 按地址领取奖励，跳过不存在的用户，结果以PocmBatchSummaryEvent通知
+     */
+    public void tryReceiveByAddresses(String[] addresses) {
+        this.processAddresses(BATCH_RECEIVE, addresses);
+    }
+
     public void giveUpAll() {
         onlyOfficial();
-        require(consensusManager.getAgents() == null, "Please remove the consensus node first");
-        boolean hasAgents = !agentDeposits.isEmpty();
-        Set<String> skippedSet = new HashSet<String>();
-        if (hasAgents) {
-            Collection<ConsensusAgentDepositInfo> agentDepositInfos = agentDeposits.values();
-            for (ConsensusAgentDepositInfo info : agentDepositInfos) {
-                skippedSet.add(info.getDepositorAddress());
-            }
-        }
-        Set<String> userSet = this.userInfo.keySet();
-        List<String> userList = new ArrayList<String>(userSet);
-        for (String user : userList) {
-            if (hasAgents && skippedSet.contains(user)) {
-                continue;
-            }
-            this.giveUpByUser(user);
-        }
+        this.requireNoAgents();
+        this.processAll(BATCH_GIVE_UP);
+    }
+
+    /**
+     * 分批紧急退出所有用户的抵押，重复调用直到返回0
+     *
+     * @param maxUsers 本次调用最多处理的用户数量
+     * @return 本轮剩余未处理的用户数量
+     */
+    public int giveUpAllBatch(int maxUsers) {
+        onlyOfficial();
+        this.requireNoAgents();
+        return this.processBatch(giveUpCursor, BATCH_GIVE_UP, maxUsers);
     }
 
     public void giveUpByAddresses(String[] addresses) {
@@ -511,6 +777,14 @@ public class PocmContract extends Ownable implements Contract {
         }
     }
 
+    /**
+     * 按地址紧急退出抵押，跳过不存在的用户、共识节点的创建者和没有抵押的用户，结果以PocmBatchSummaryEvent通知
+     */
+    public void tryGiveUpByAddresses(String[] addresses) {
+        onlyOfficial();
+        this.processAddresses(BATCH_GIVE_UP, addresses);
+    }
+
     public BigInteger consensusEmergencyWithdraw(String joinAgentHash) {
         onlyOfficial();
         return consensusManager.consensusEmergencyWithdraw(joinAgentHash);
@@ -522,6 +796,16 @@ public class PocmContract extends Ownable implements Contract {
         pi.c = BigInteger.valueOf(c);
     }
 
+    /**
+     * 查询分批处理的进度
+     *
+     * @param mode 0-领取奖励, 1-退出抵押, 2-紧急退出抵押
+     */
+    @View
+    public String batchProgress(int mode) {
+        return this.batchCursor(mode).toString();
+    }
+
     @View
     public int totalDepositAddressCount() {
         return this.userInfo.size();
@@ -623,6 +907,50 @@ public class PocmContract extends Ownable implements Contract {
         return sb.toString();
     }
 
+    /**
+     * 查询合约当前信息的汇总，返回的数据大小不随委托数量增长，委托明细使用depositListPage、agentsPage分页查询
+     */
+    @View
+    public String consensusSummary() {
+        String totalDepositDetail = totalDepositDetail();
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"totalDepositDetail\":")
+                .append('\"').append(totalDepositDetail).append('\"');
+        if (pi.openConsensus) {
+            sb.append(",\"consensusManager\":")
+                    .append(consensusManager == null ? "0" : consensusManager.summary());
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * 按金额升序分页查询委托其他节点的委托信息
+     *
+     * @param offset 跳过的数量
+     * @param limit  本页的数量，不超过PAGE_MAX_LIMIT
+     */
+    @View
+    public String depositListPage(int offset, int limit) {
+        require(pi.openConsensus, "Consensus is not turned on");
+        checkPage(offset, limit);
+        return consensusManager.depositListPage(offset, limit);
+    }
+
+    /**
+     * 分页查询委托的其他节点
+     *
+     * @param offset 跳过的数量
+     * @param limit  本页的数量，不超过PAGE_MAX_LIMIT
+     * @return eg. {"total":2,"offset":0,"list":[{"hash":"","agentDeposits":""}]}，金额单位为na
+     */
+    @View
+    public String agentsPage(int offset, int limit) {
+        require(pi.openConsensus, "Consensus is not turned on");
+        checkPage(offset, limit);
+        return consensusManager.agentsPage(offset, limit);
+    }
+
     /**
      * 查找用户的抵押信息
      *
@@ -630,8 +958,9 @@ public class PocmContract extends Ownable implements Contract {
      */
     @View
     @JSONSerializable
-    public UserInfo getDepositInfo(Address address) {
-        return this.userInfo.get(address.toString());
+    public UserDepositInfo getDepositInfo(Address address) {
+        UserInfo user = this.userInfo.get(address.toString());
+        return user == null ? null : new UserDepositInfo(user);
     }
 
     /**
@@ -652,7 +981,7 @@ public class PocmContract extends Ownable implements Contract {
      */
     @View
     public String calcUnAllocationTokenAmount() {
-        return pi.candyTokenWrapper.balanceOf(Msg.address()).toString();
+        return pi.candyTokenWrapper.balanceOf(Msg.address()).subtract(pi.pendingLpShare).toString();
     }
 
     /**
@@ -671,119 +1000,392 @@ public class PocmContract extends Ownable implements Contract {
         String userAddress = _user.toString();
         UserInfo user = this.userInfo.get(userAddress);
         require(user != null, "user not exist");
+        return this.pendingTokenOf(user, this.projectedAccPerShare()).toString();
+    }
+
+    /**
+     * 批量查询用户未领取的收益
+     *
+     * @param addresses 用户地址，先校验地址格式再写入结果
+     * @return eg. {"address1":"100","address2":null}，不存在的用户为null
+     */
+    @View
+    public String pendingTokens(String[] addresses) {
+        require(addresses != null, "empty addresses");
+        UInt128 accPerShare = this.projectedAccPerShare();
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < addresses.length; i++) {
+            String address = new Address(addresses[i]).toString();
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(address).append("\":");
+            UserInfo user = this.userInfo.get(address);
+            if (user == null) {
+                sb.append("null");
+            } else {
+                sb.append('"').append(this.pendingTokenOf(user, accPerShare).toString()).append('"');
+            }
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * 分页查询质押用户，从用户列表的末尾向前遍历
+     * 删除用户时由列表最后一个用户补位，补位的用户已经返回过，所以分页期间有用户退出也不会遗漏，只可能重复返回；分页期间新加入的用户不返回
+     *
+     * @param cursor 上一页返回的nextCursor，第一页传-1
+     * @param limit  本页的数量，不超过PAGE_MAX_LIMIT
+     * @return eg. {"size":100,"list":[{"address":"","amount":"","pending":""}],"nextCursor":98}，nextCursor为0时遍历结束；金额单位为na
+     */
+    @View
+    public String stakersPage(int cursor, int limit) {
+        require(cursor >= -1, "cursor not good");
+        require(limit > 0 && limit <= PAGE_MAX_LIMIT, "limit not good");
+        int size = this.userInfo.size();
+        int index = cursor == -1 || cursor > size ? size : cursor;
+        UInt128 accPerShare = this.projectedAccPerShare();
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"size\":").append(size);
+        sb.append(",\"list\":[");
+        for (int count = 0; count < limit && index > 0; count++) {
+            index--;
+            String address = this.userInfo.addressAt(index);
+            UserInfo user = this.userInfo.get(address);
+            if (count > 0) {
+                sb.append(',');
+            }
+            // 用户列表中的地址在加入时已经校验过
+            sb.append("{\"address\":\"").append(address).append('"');
+            sb.append(",\"amount\":\"").append(user.getAmount()).append('"');
+            sb.append(",\"pending\":\"").append(this.pendingTokenOf(user, accPerShare).toString()).append("\"}");
+        }
+        sb.append("],\"nextCursor\":").append(index);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * 质押统计，所有数据在用户变化时增量维护，查询不遍历用户(前几名的名单不精确时遍历一次重新填充)；金额单位为na
+     * pendingRewards为按当前高度推算的池子产出(按accPerShare实际计入的部分)减去已发放和不再发放的奖励，即所有用户待领取奖励的合计(含LP抽取部分)，另含每个用户结算时的少量取整误差
+     *
+     * @return eg. {"stakers":100,"activeStakers":90,"totalStake":"","averageStake":"","buckets":[{"min":"0","count":1}],"topStakers":[{"address":"","amount":""}],
+     * "rewardEmitted":"","rewardPaid":"","rewardForfeited":"","pendingRewards":""}
+     */
+    @View
+    public String poolStats() {
+        BigInteger emitted = pi.rewardEmitted;
+        long blockNumber = Block.number();
+        blockNumber = blockNumber < pi.endBlock ? blockNumber : pi.endBlock;
+        if (blockNumber > pi.lastRewardBlock && pi.getLpSupply().compareTo(BigInteger.ZERO) > 0) {
+            emitted = emitted.add(this.rewardCredited(this.accPerShareIncrement(blockNumber)));
+        }
+        BigInteger pendingRewards = emitted.subtract(this.allocationAmount).subtract(pi.rewardForfeited);
+        this.userInfo.refreshTopStakers();
+        String stats = this.userInfo.getStats().toString();
+        StringBuilder sb = new StringBuilder("{");
+        sb.append("\"stakers\":").append(this.userInfo.size()).append(',');
+        // 去掉统计信息的外层括号，合并为一个对象
+        sb.append(stats.substring(1, stats.length() - 1));
+        sb.append(",\"rewardEmitted\":\"").append(emitted).append('"');
+        sb.append(",\"rewardPaid\":\"").append(this.allocationAmount).append('"');
+        sb.append(",\"rewardForfeited\":\"").append(pi.rewardForfeited).append('"');
+        sb.append(",\"pendingRewards\":\"").append(pendingRewards.compareTo(BigInteger.ZERO) > 0 ? pendingRewards : BigInteger.ZERO).append('"');
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * 按当前高度推算的accPerShare，不修改池子状态
+     */
+    private UInt128 projectedAccPerShare() {
         long blockNumber = Block.number();
         blockNumber = blockNumber < pi.endBlock ? blockNumber : pi.endBlock;
         if (blockNumber > pi.lastRewardBlock && pi.getLpSupply().compareTo(BigInteger.ZERO) > 0) {
-            BigInteger reward = BigInteger.valueOf(blockNumber - pi.lastRewardBlock).multiply(pi.candyPerBlock);
-            pi.accPerShare = pi.accPerShare.add(reward.multiply(pi._1e12).divide(pi.getLpSupply()));   // 此处乘以1e12，在下面会除以1e12
+            UInt128 accPerShare = new UInt128();
+            accPerShare.set(pi.accPerShare);
+            accPerShare.add(this.accPerShareIncrement(blockNumber));
+            return accPerShare;
         }
-        BigInteger pendingReward = user.getAvailableAmount().multiply(pi.accPerShare).divide(pi._1e12).subtract(user.getRewardDebt());
+        return pi.accPerShare;
+    }
+
+    /**
+     * accPerShare增加increment时计入所有用户的奖励，不含accPerShare取整舍去的部分
+     */
+    private BigInteger rewardCredited(UInt128 increment) {
+        return increment.toBigInteger().multiply(pi.getLpSupply()).divide(pi._1e12);
+    }
+
+    /**
+     * 从lastRewardBlock到blockNumber的每份额奖励，乘以1e12，计算用户奖励时会除以1e12
+     */
+    private UInt128 accPerShareIncrement(long blockNumber) {
+        BigInteger reward = BigInteger.valueOf(blockNumber - pi.lastRewardBlock).multiply(pi.candyPerBlock);
+        return UInt128.valueOf(reward.multiply(pi._1e12).divide(pi.getLpSupply()));
+    }
+
+    private BigInteger pendingTokenOf(UserInfo user, UInt128 accPerShare) {
+        BigInteger pendingReward = user.pendingReward(accPerShare);
+        pendingReward = pendingReward.add(user.getAccruedReward());
         if (pi.operatingModel == LP_MODE) {
             BigInteger lpMode = pendingReward.multiply(BigInteger.valueOf(pi.rewardDrawRatioForLp)).divide(TEN_THOUSAND);
-            return pendingReward.subtract(lpMode).toString();
+            return pendingReward.subtract(lpMode);
         }
-        return pendingReward.toString();
+        return pendingReward;
     }
 
     private BigInteger checkCandyBalance() {
-        BigInteger candyBalance = pi.candyTokenWrapper.balanceOf(Msg.address());
+        BigInteger candyBalance = pi.getCandyBalance();
+        if (candyBalance.compareTo(BigInteger.ZERO) == 0) {
+            // 记账余额耗尽时按链上余额校正，以免遗漏直接转入的糖果
+            candyBalance = pi.reconcileCandyBalance();
+        }
         require(candyBalance.compareTo(BigInteger.ZERO) >= 0, "No enough candy token in the contract");
         return candyBalance;
     }
 
+    /**
+     * 结算并发放用户的全部奖励，调用后需重置rewardDebt
+     */
     private void receiveInternal(Address sender, UserInfo user) {
+        this.settleReward(user);
+        this.payAccruedReward(sender, user);
+    }
+
+    /**
+     * 结算用户的奖励，已结算奖励达到阈值时才发放，调用后需重置rewardDebt
+     */
+    private void accrueInternal(Address sender, UserInfo user) {
+        this.settleReward(user);
+        if (user.getAccruedReward().compareTo(pi.rewardClaimThreshold) >= 0) {
+            this.payAccruedReward(sender, user);
+        }
+    }
+
+    /**
+     * 把待领取奖励计入已结算奖励
+     */
+    private void settleReward(UserInfo user) {
+        BigInteger pending = user.pendingReward(pi.accPerShare);
+        if (pending.compareTo(BigInteger.ZERO) > 0) {
+            user.addAccruedReward(pending);
+        }
+    }
+
+    private void payAccruedReward(Address sender, UserInfo user) {
         BigInteger candyBalance = checkCandyBalance();
         if (candyBalance.compareTo(BigInteger.ZERO) == 0) {
             this.isAcceptStaking = false;
+            BigInteger forfeited = user.getAccruedReward();
+            if (forfeited.compareTo(BigInteger.ZERO) > 0) {
+                pi.rewardForfeited = pi.rewardForfeited.add(forfeited);
+                user.clearAccruedReward();
+                emit(new PocmRewardForfeitEvent(sender.toString(), forfeited));
+            }
             return;
         }
-        if (user.getAvailableAmount().compareTo(BigInteger.ZERO) > 0) {
-            BigInteger pending = user.getAvailableAmount().multiply(pi.accPerShare).divide(pi._1e12).subtract(user.getRewardDebt());
-            if (pending.compareTo(BigInteger.ZERO) > 0) {
-                // 发放的奖励 <= 糖果余额
-                BigInteger amount;
-                if (candyBalance.compareTo(pending) > 0) {
-                    amount = pending;
-                } else {
-                    amount = candyBalance;
-                    this.isAcceptStaking = false;
-                }
-                long lockedTime = pi.lockedTime;
-                if (pi.isNRC20Candy) {
-                    lockedTime += Block.timestamp();
+        BigInteger pending = user.getAccruedReward();
+        if (pending.compareTo(BigInteger.ZERO) > 0) {
+            user.clearAccruedReward();
+            // 发放的奖励 <= 糖果余额
+            BigInteger amount;
+            if (candyBalance.compareTo(pending) <= 0) {
+                candyBalance = pi.reconcileCandyBalance();
+            }
+            if (candyBalance.compareTo(pending) > 0) {
+                amount = pending;
+            } else {
+                amount = candyBalance;
+                this.isAcceptStaking = false;
+                BigInteger forfeited = pending.subtract(amount);
+                if (forfeited.compareTo(BigInteger.ZERO) > 0) {
+                    pi.rewardForfeited = pi.rewardForfeited.add(forfeited);
+                    emit(new PocmRewardForfeitEvent(sender.toString(), forfeited));
                 }
-                // 奖励领取事件
-                ArrayList<CurrentMingInfo> list = new ArrayList<CurrentMingInfo>();
-                if (pi.operatingModel == LP_MODE) {
-                    BigInteger lpMode = amount.multiply(BigInteger.valueOf(pi.rewardDrawRatioForLp)).divide(TEN_THOUSAND);
-                    BigInteger userAmount = amount.subtract(lpMode);
-                    pi.candyTokenWrapper.transferLocked(sender, userAmount, lockedTime);
-                    if (pi.isNRC20Candy) {
-                        pi.candyTokenWrapper.approve(this.viewLp(), lpMode);
-                        this.viewLp().call("amountEnter", null, new String[][]{new String[]{lpMode.toString()}, new String[]{pi.candyToken.toString()}}, BigInteger.ZERO);
-                    } else {
-                        this.viewLp().callWithReturnValue("amountEnter", null, new String[][]{new String[]{"0"}, new String[]{}}, BigInteger.ZERO,
-                                new MultyAssetValue[]{new MultyAssetValue(lpMode, pi.candyAssetChainId, pi.candyAssetId)});
-                    }
-                    list.add(new CurrentMingInfo(0, userAmount, sender.toString(), 0));
-                    list.add(new CurrentMingInfo(0, lpMode, this.viewLp().toString(), 0));
-                } else if (pi.operatingModel == NORMAL_MODE) {
-                    pi.candyTokenWrapper.transferLocked(sender, amount, lockedTime);
-                    list.add(new CurrentMingInfo(0, amount, sender.toString(), 0));
+            }
+            long lockedTime = pi.lockedTime;
+            if (pi.isNRC20Candy) {
+                lockedTime += Block.timestamp();
+            }
+            // 奖励领取事件
+            ArrayList<CurrentMingInfo> list = new ArrayList<CurrentMingInfo>();
+            if (pi.operatingModel == LP_MODE) {
+                BigInteger lpMode = amount.multiply(BigInteger.valueOf(pi.rewardDrawRatioForLp)).divide(TEN_THOUSAND);
+                BigInteger userAmount = amount.subtract(lpMode);
+                pi.candyTokenWrapper.transferLocked(sender, userAmount, lockedTime);
+                list.add(new CurrentMingInfo(0, userAmount, sender.toString(), 0));
+                // LP抽取的糖果先累计，达到阈值后一次性转入LP合约
+                pi.pendingLpShare = pi.pendingLpShare.add(lpMode);
+                if (pi.pendingLpShare.compareTo(pi.lpFlushThreshold) >= 0) {
+                    this.flushLpShareInner(list);
                 }
-                this.allocationAmount = this.allocationAmount.add(amount);
-                emit(new CurrentMiningInfoEvent(list));
+            } else if (pi.operatingModel == NORMAL_MODE) {
+                pi.candyTokenWrapper.transferLocked(sender, amount, lockedTime);
+                list.add(new CurrentMingInfo(0, amount, sender.toString(), 0));
             }
+            pi.subCandyBalance(amount);
+            this.allocationAmount = this.allocationAmount.add(amount);
+            emit(new CurrentMiningInfoEvent(list));
+        }
+    }
+
+    private void flushLpShareInner(List<CurrentMingInfo> list) {
+        BigInteger lpShare = pi.pendingLpShare;
+        if (lpShare.compareTo(BigInteger.ZERO) == 0) {
+            return;
+        }
+        pi.pendingLpShare = BigInteger.ZERO;
+        if (pi.isNRC20Candy) {
+            pi.candyTokenWrapper.approve(this.viewLp(), lpShare);
+            this.viewLp().call("amountEnter", null, new String[][]{new String[]{lpShare.toString()}, new String[]{pi.candyToken.toString()}}, BigInteger.ZERO);
+        } else {
+            this.viewLp().callWithReturnValue("amountEnter", null, new String[][]{new String[]{"0"}, new String[]{}}, BigInteger.ZERO,
+                    new MultyAssetValue[]{new MultyAssetValue(lpShare, pi.candyAssetChainId, pi.candyAssetId)});
+        }
+        list.add(new CurrentMingInfo(0, lpShare, this.viewLp().toString(), 0));
+    }
+
+    private void receiveAccrued(Address address, UserInfo user) {
+        this.receiveInternal(address, user);
+        user.updateRewardDebt(pi.accPerShare);
+        // 已退出抵押的用户领取完已结算奖励后删除
+        if (user.getAmount() == 0 && user.getAvailableAmount() == 0 && user.getAgentAmount() == 0) {
+            this.userInfo.remove(address.toString());
         }
     }
 
     private void withdrawByUser(Address sender, UserInfo user, BigInteger _amount) {
+        updatePool();
+        this.withdrawAccruedByUser(sender, user, _amount);
+    }
+
+    /**
+     * 调用前需先执行updatePool
+     */
+    private void withdrawAccruedByUser(Address sender, UserInfo user, BigInteger _amount) {
         String senderAddress = sender.toString();
         require(_amount.compareTo(BigInteger.ZERO) > 0, "withdraw: amount not good");
-        require(user.getAmount().compareTo(_amount) >= 0, "withdraw: amount not good");
-        updatePool();
-        // 领取奖励
-        this.receiveInternal(sender, user);
+        require(BigInteger.valueOf(user.getAmount()).compareTo(_amount) >= 0, "withdraw: amount not good");
+        if (user.getAmount() == _amount.longValue()) {
+            // 全部退出时发放所有奖励
+            this.receiveInternal(sender, user);
+        } else {
+            // 结算奖励，达到阈值时发放
+            this.accrueInternal(sender, user);
+        }
 
         //BigInteger available = AVAILABLE_PERCENT.multiply(new BigDecimal(_amount)).toBigInteger();
         BigInteger available = _amount;
         boolean isEnoughBalance = totalDepositManager.subtract(available);
         require(isEnoughBalance, "The balance is not enough to refund the staking, please contact the project party, the staking: " + available);
-        user.subAmount(_amount, available);
-        pi.subLpSupply(available);
-        user.setRewardDebt(user.getAvailableAmount().multiply(pi.accPerShare).divide(pi._1e12));
+        this.subtractStake(user, _amount);
         if (_amount.compareTo(BigInteger.ZERO) > 0) {
             sender.transfer(_amount);
         }
-        if (user.getAvailableAmount().compareTo(BigInteger.ZERO) == 0 && user.getAgentAmount().compareTo(BigInteger.ZERO) == 0) {
+        if (user.getAvailableAmount() == 0 && user.getAgentAmount() == 0) {
             this.userInfo.remove(senderAddress);
         }
         // 提现事件
         emit(new PocmWithdrawEvent(senderAddress, _amount.toString()));
     }
 
+    private void checkPage(int offset, int limit) {
+        require(offset >= 0, "offset not good");
+        require(limit > 0 && limit <= PAGE_MAX_LIMIT, "limit not good");
+    }
+
+    /**
+     * 抵押的校验条件
+     */
+    private void checkStakingAmount(BigInteger _amount) {
+        require(isAllocationToken(), "No enough candy token in the contract");
+        require(isAcceptStaking(), "Cannot staking, please check the contract");
+        require(!isEnd(), "Cannot staking, pool has ended");
+        require(_amount.compareTo(pi.minimumStaking) >= 0, "amount not good[minimum]");
+        require(_amount.compareTo(pi.maximumStaking) <= 0, "amount not good[maximum]");
+    }
+
+    /**
+     * 增加用户的抵押，调用前需先结算用户的奖励；不调整总抵押金
+     *
+     * @return 用户不存在时新建的用户
+     */
+    private UserInfo addStake(String senderAddress, UserInfo user, BigInteger _amount) {
+        // 90% available for staking
+        //BigDecimal bigDecimalValue = new BigDecimal(_amount);
+        //BigInteger availableAmount = AVAILABLE_PERCENT.multiply(bigDecimalValue).toBigInteger();
+        // 100% available for staking
+        BigInteger availableAmount = _amount;
+        long blockNumber = Block.number();
+
+        if (user == null) {
+            user = new UserInfo(toLongNa(_amount), toLongNa(availableAmount), blockNumber);
+            this.userInfo.put(senderAddress, user);
+        } else {
+            long previousAmount = user.getAmount();
+            user.addAmount(toLongNa(_amount), toLongNa(availableAmount));
+            user.setLastDepositHeight(blockNumber);
+            this.userInfo.amountChanged(user, previousAmount);
+        }
+        require(BigInteger.valueOf(user.getAmount()).compareTo(pi.maximumStaking) <= 0, "user amount not good[maximum]");
+        pi.addLpSupply(availableAmount);
+        user.updateRewardDebt(pi.accPerShare);
+        return user;
+    }
+
+    /**
+     * 减少用户的抵押，调用前需先结算用户的奖励；不调整总抵押金，不转账
+     */
+    private void subtractStake(UserInfo user, BigInteger _amount) {
+        require(_amount.compareTo(BigInteger.ZERO) > 0, "withdraw: amount not good");
+        require(BigInteger.valueOf(user.getAmount()).compareTo(_amount) >= 0, "withdraw: amount not good");
+        long previousAmount = user.getAmount();
+        user.subAmount(_amount.longValue(), _amount.longValue());
+        this.userInfo.amountChanged(user, previousAmount);
+        pi.subLpSupply(_amount);
+        user.updateRewardDebt(pi.accPerShare);
+    }
+
+    /**
+     * 紧急退出：退还用户全部抵押金，不发放奖励
+     * <p>
+     * 先更新池子再减少lpSupply，用户截至当前高度未结算的奖励不再发放，计入rewardForfeited；
+     * 这部分奖励不再在下次更新池子时分给其余用户
+     * <p>
+     * 已结算未发放的奖励(accruedReward)不会被没收，有这部分奖励的用户保留在用户列表中，之后可以领取；
+     * 这些用户已没有抵押，批量紧急退出时跳过，见{@link #hasNoStake}
+     */
     private void emergencyWithdrawByUser(Address sender, UserInfo user) {
         String senderAddress = sender.toString();
-        BigInteger _amount = user.getAmount();
+        BigInteger _amount = BigInteger.valueOf(user.getAmount());
         //BigInteger available = AVAILABLE_PERCENT.multiply(new BigDecimal(_amount)).toBigInteger();
         BigInteger available = _amount;
         boolean isEnoughBalance = totalDepositManager.subtract(available);
         require(isEnoughBalance, "The balance is not enough to refund the staking, please contact the project party, the staking: " + available);
+        // 保留有已结算奖励的用户，可继续领取
+        boolean removeUser = user.getAvailableAmount() == available.longValue() && !user.hasAccruedReward();
+        // 先更新池子，截至当前高度未结算的奖励不再发放，计入rewardForfeited
+        updatePool();
+        BigInteger forfeited = user.pendingReward(pi.accPerShare);
         if (_amount.compareTo(BigInteger.ZERO) > 0) {
             sender.transfer(_amount);
-            user.subAmount(_amount, available);
+            long previousAmount = user.getAmount();
+            user.subAmount(_amount.longValue(), available.longValue());
+            this.userInfo.amountChanged(user, previousAmount);
             // 紧急提现，退出抵押事件，避免节点创建者紧急提现，QuitDepositEvent的事件在后台可能会把正常抵押删除
             List<Long> stakingNumbers = new ArrayList<Long>();
             stakingNumbers.add(0L);
             emit(new PocmQuitDepositEvent(stakingNumbers, senderAddress));
         }
-        if (user.getAvailableAmount().compareTo(BigInteger.ZERO) == 0) {
+        if (removeUser) {
             this.userInfo.remove(senderAddress);
         } else {
-            updatePool();
-            user.setRewardDebt(user.getAvailableAmount().multiply(pi.accPerShare).divide(pi._1e12));
+            user.updateRewardDebt(pi.accPerShare);
         }
         pi.subLpSupply(available);
+        pi.rewardForfeited = pi.rewardForfeited.add(forfeited);
     }
 
     private boolean isEnd() {
@@ -796,7 +1398,7 @@ public class PocmContract extends Ownable implements Contract {
 
     private boolean isAllocationToken() {
         if (!isAllocationToken) {
-            BigInteger balance = pi.candyTokenWrapper.balanceOf(Msg.address());
+            BigInteger balance = pi.reconcileCandyBalance();
             if (balance.compareTo(BigInteger.ZERO) > 0) {
                 isAllocationToken = true;
                 isAcceptStaking = true;
@@ -805,9 +1407,122 @@ public class PocmContract extends Ownable implements Contract {
         return isAllocationToken;
     }
 
+    private BatchCursor batchCursor(int mode) {
+        if (mode == BATCH_RECEIVE) {
+            return receiveCursor;
+        } else if (mode == BATCH_QUIT) {
+            return quitCursor;
+        } else if (mode == BATCH_GIVE_UP) {
+            return giveUpCursor;
+        }
+        revert("mode not good");
+        return null;
+    }
+
+    /**
+     * 共识节点创建者的地址，退出所有用户时跳过
+     */
+    private Set<String> agentDepositorSet() {
+        Set<String> skippedSet = new HashSet<String>();
+        Collection<ConsensusAgentDepositInfo> agentDepositInfos = agentDeposits.values();
+        for (ConsensusAgentDepositInfo info : agentDepositInfos) {
+            skippedSet.add(info.getDepositorAddress());
+        }
+        return skippedSet;
+    }
+
+    private void processAll(int mode) {
+        Set<String> skippedSet = mode == BATCH_RECEIVE ? null : this.agentDepositorSet();
+        updatePool();
+        // 倒序遍历，删除用户时补位的是已处理过的用户
+        for (int i = this.userInfo.size() - 1; i >= 0; i--) {
+            this.processUser(mode, this.userInfo.addressAt(i), skippedSet);
+        }
+    }
+
+    private int processBatch(BatchCursor batch, int mode, int maxUsers) {
+        require(maxUsers > 0, "maxUsers not good");
+        if (!batch.isRunning()) {
+            batch.start(this.userInfo.size());
+        }
+        Set<String> skippedSet = mode == BATCH_RECEIVE ? null : this.agentDepositorSet();
+        updatePool();
+        int handled = 0;
+        while (handled < maxUsers) {
+            // 保留足够的gas完成当前调用
+            if (handled > 0 && Msg.gasleft() < BATCH_GAS_RESERVE) {
+                break;
+            }
+            int index = batch.next(this.userInfo.size());
+            if (index < 0) {
+                break;
+            }
+            this.processUser(mode, this.userInfo.addressAt(index), skippedSet);
+            handled++;
+        }
+        batch.finishIfDone();
+        return batch.getCursor();
+    }
+
+    /**
+     * 按地址处理用户，奖励只累计一次，不存在或不符合条件的地址跳过
+     */
+    private void processAddresses(int mode, String[] addresses) {
+        require(addresses != null, "empty addresses");
+        Set<String> skippedSet = mode == BATCH_RECEIVE ? null : this.agentDepositorSet();
+        updatePool();
+        BigInteger allocationBefore = this.allocationAmount;
+        BigInteger refundedStake = BigInteger.ZERO;
+        int processed = 0;
+        int skipped = 0;
+        for (String userAddress : addresses) {
+            UserInfo user = userAddress == null ? null : this.userInfo.get(userAddress);
+            if (user == null || (skippedSet != null && skippedSet.contains(userAddress))
+                    || (mode == BATCH_GIVE_UP && this.hasNoStake(user))) {
+                skipped++;
+                continue;
+            }
+            if (mode != BATCH_RECEIVE) {
+                refundedStake = refundedStake.add(BigInteger.valueOf(user.getAmount()));
+            }
+            this.processUser(mode, userAddress, null);
+            processed++;
+        }
+        emit(new PocmBatchSummaryEvent(mode, processed, skipped, this.allocationAmount.subtract(allocationBefore), refundedStake));
+    }
+
+    private void processUser(int mode, String userAddress, Set<String> skippedSet) {
+        if (skippedSet != null && skippedSet.contains(userAddress)) {
+            return;
+        }
+        UserInfo user = this.userInfo.get(userAddress);
+        if (mode == BATCH_RECEIVE) {
+            this.receiveAccrued(new Address(userAddress), user);
+        } else if (mode == BATCH_QUIT) {
+            if (user.getAmount() == 0) {
+                // 已退出抵押，只有已结算奖励
+                this.receiveAccrued(new Address(userAddress), user);
+                return;
+            }
+            this.withdrawAccruedByUser(new Address(userAddress), user, BigInteger.valueOf(user.getAmount()));
+        } else if (mode == BATCH_GIVE_UP) {
+            if (this.hasNoStake(user)) {
+                return;
+            }
+            this.emergencyWithdrawByUser(new Address(userAddress), user);
+        }
+    }
+
+    /**
+     * 用户没有抵押，只有已结算未发放的奖励，紧急退出对其没有作用
+     */
+    private boolean hasNoStake(UserInfo user) {
+        return user.getAmount() == 0 && user.getAvailableAmount() == 0;
+    }
+
     private void giveUpByUser(String userAddress) {
         UserInfo userInfo = this.userInfo.get(userAddress);
-        if (userInfo == null) {
+        if (userInfo == null || this.hasNoStake(userInfo)) {
             return;
         }
         this.emergencyWithdrawByUser(new Address(userAddress), userInfo);
@@ -818,7 +1533,13 @@ public class PocmContract extends Ownable implements Contract {
         if (userInfo == null) {
             return;
         }
-        this.withdrawByUser(new Address(userAddress), userInfo, userInfo.getAmount());
+        if (userInfo.getAmount() == 0) {
+            // 已退出抵押，只有已结算奖励
+            updatePool();
+            this.receiveAccrued(new Address(userAddress), userInfo);
+            return;
+        }
+        this.withdrawByUser(new Address(userAddress), userInfo, BigInteger.valueOf(userInfo.getAmount()));
     }
 
     private void updatePool() {
@@ -828,12 +1549,26 @@ public class PocmContract extends Ownable implements Contract {
         }
         if (pi.getLpSupply().compareTo(BigInteger.ZERO) == 0) {
             pi.lastRewardBlock = blockNumber;
+            pi.emitPoolUpdate();
             return;
         }
         blockNumber = blockNumber < pi.endBlock ? blockNumber : pi.endBlock;
-        BigInteger reward = BigInteger.valueOf(blockNumber - pi.lastRewardBlock).multiply(pi.candyPerBlock);
-        pi.accPerShare = pi.accPerShare.add(reward.multiply(pi._1e12).divide(pi.getLpSupply()));
-        pi.lastRewardBlock = blockNumber;
+        if (blockNumber > pi.lastRewardBlock) {
+            UInt128 increment = this.accPerShareIncrement(blockNumber);
+            pi.accPerShare.add(increment);
+            pi.rewardEmitted = pi.rewardEmitted.add(this.rewardCredited(increment));
+        }
+        if (blockNumber != pi.lastRewardBlock) {
+            pi.lastRewardBlock = blockNumber;
+            pi.emitPoolUpdate();
+        }
+    }
+
+    /**
+     * 退出所有用户前需先移除共识节点，未开启过共识的池子没有共识节点
+     */
+    private void requireNoAgents() {
+        require(consensusManager == null || consensusManager.getAgents() == null, "Please remove the consensus node first");
     }
 
     private void openConsensusInner() {
@@ -36,6 +36,8 @@ public class PocmAgentEvent implements Event {
     private String hash;
     private BigInteger value;
     private boolean openNodeAward;
+    // 节点创建者地址
+    private String agentAddress;
 
     public PocmAgentEvent() {
     }
@@ -46,4 +48,9 @@ public class PocmAgentEvent implements Event {
         this.openNodeAward = openNodeAward;
     }
 
+    public PocmAgentEvent(String hash, BigInteger value, boolean openNodeAward, String agentAddress) {
+        this(hash, value, openNodeAward);
+        this.agentAddress = agentAddress;
+    }
+
 }
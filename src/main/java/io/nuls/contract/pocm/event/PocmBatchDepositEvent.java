@@ -0,0 +1,34 @@
+package io.nuls.contract.pocm.event;
+
+import io.nuls.contract.sdk.Event;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * 代多个地址抵押，合并为一个事件
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PocmBatchDepositEvent implements Event {
+    // 付款地址
+    private String payerAddress;
+    // 抵押地址及对应的抵押金额(去除小数位后)
+    private List<String> miningAddresses;
+    private List<BigInteger> depositAmounts;
+    private BigInteger totalAmount;
+    private long depositHeight;
+
+    public PocmBatchDepositEvent() {
+    }
+
+    public PocmBatchDepositEvent(String payerAddress, List<String> miningAddresses, List<BigInteger> depositAmounts, BigInteger totalAmount, long depositHeight) {
+        this.payerAddress = payerAddress;
+        this.miningAddresses = miningAddresses;
+        this.depositAmounts = depositAmounts;
+        this.totalAmount = totalAmount;
+        this.depositHeight = depositHeight;
+    }
+
+}
@@ -0,0 +1,34 @@
+package io.nuls.contract.pocm.event;
+
+import io.nuls.contract.sdk.Event;
+
+import java.math.BigInteger;
+
+/**
+ * 按地址批量处理用户的结果，不存在或不符合条件的地址被跳过
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PocmBatchSummaryEvent implements Event {
+    // 0-领取奖励，1-退出抵押，2-紧急退出抵押
+    private int mode;
+    private int processed;
+    private int skipped;
+    // 发放的奖励
+    private BigInteger paidReward;
+    // 退还的抵押金
+    private BigInteger refundedStake;
+
+    public PocmBatchSummaryEvent() {
+    }
+
+    public PocmBatchSummaryEvent(int mode, int processed, int skipped, BigInteger paidReward, BigInteger refundedStake) {
+        this.mode = mode;
+        this.processed = processed;
+        this.skipped = skipped;
+        this.paidReward = paidReward;
+        this.refundedStake = refundedStake;
+    }
+
+}
@@ -0,0 +1,29 @@
+package io.nuls.contract.pocm.event;
+
+import io.nuls.contract.sdk.Event;
+
+import java.math.BigInteger;
+
+/**
+ * 手动委托共识节点的结果
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PocmConsensusDepositEvent implements Event {
+    private BigInteger actualDeposit;
+    private int visitedAgents;
+    private int depositCount;
+    private int removedAgents;
+
+    public PocmConsensusDepositEvent() {
+    }
+
+    public PocmConsensusDepositEvent(BigInteger actualDeposit, int visitedAgents, int depositCount, int removedAgents) {
+        this.actualDeposit = actualDeposit;
+        this.visitedAgents = visitedAgents;
+        this.depositCount = depositCount;
+        this.removedAgents = removedAgents;
+    }
+
+}
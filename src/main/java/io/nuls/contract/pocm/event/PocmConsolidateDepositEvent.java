@@ -0,0 +1,25 @@
+package io.nuls.contract.pocm.event;
+
+import io.nuls.contract.sdk.Event;
+
+/**
+ * 合并共识委托的结果
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PocmConsolidateDepositEvent implements Event {
+    // 被合并掉的委托数量
+    private int mergedCount;
+    // 合并后剩余的委托数量
+    private int depositCount;
+
+    public PocmConsolidateDepositEvent() {
+    }
+
+    public PocmConsolidateDepositEvent(int mergedCount, int depositCount) {
+        this.mergedCount = mergedCount;
+        this.depositCount = depositCount;
+    }
+
+}
@@ -0,0 +1,29 @@
+package io.nuls.contract.pocm.event;
+
+import io.nuls.contract.sdk.Event;
+
+import java.math.BigInteger;
+
+/**
+ * 池子状态变化: updatePool推进了lastRewardBlock，或抵押总量变化、补充糖果时重新计算了endBlock
+ * 链下索引按此事件同步accPerShare，不需要按调用的方法推算
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PocmPoolUpdateEvent implements Event {
+    // 每份抵押累计的奖励，乘以1e12
+    private BigInteger accPerShare;
+    private long lastRewardBlock;
+    private long endBlock;
+
+    public PocmPoolUpdateEvent() {
+    }
+
+    public PocmPoolUpdateEvent(BigInteger accPerShare, long lastRewardBlock, long endBlock) {
+        this.accPerShare = accPerShare;
+        this.lastRewardBlock = lastRewardBlock;
+        this.endBlock = endBlock;
+    }
+
+}
@@ -8,6 +8,8 @@ import io.nuls.contract.sdk.Event;
  */
 public class PocmRemoveAgentEvent implements Event {
     private String hash;
+    // 紧急删除节点时不为节点创建者结算奖励
+    private boolean emergency;
 
     public PocmRemoveAgentEvent() {
     }
@@ -16,4 +18,9 @@ public class PocmRemoveAgentEvent implements Event {
         this.hash = hash;
     }
 
+    public PocmRemoveAgentEvent(String hash, boolean emergency) {
+        this.hash = hash;
+        this.emergency = emergency;
+    }
+
 }
@@ -0,0 +1,27 @@
+package io.nuls.contract.pocm.event;
+
+import io.nuls.contract.sdk.Event;
+
+import java.math.BigInteger;
+
+/**
+ * 糖果余额不足，用户已结算的奖励未发放(或未全部发放)，未发放的部分不再发放，计入rewardForfeited
+ * 用户的已结算奖励清零，链下索引按此事件同步
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PocmRewardForfeitEvent implements Event {
+    private String user;
+    // 不再发放的奖励
+    private BigInteger amount;
+
+    public PocmRewardForfeitEvent() {
+    }
+
+    public PocmRewardForfeitEvent(String user, BigInteger amount) {
+        this.user = user;
+        this.amount = amount;
+    }
+
+}
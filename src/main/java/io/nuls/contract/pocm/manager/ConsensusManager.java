@@ -24,10 +24,15 @@
 package io.nuls.contract.pocm.manager;
 
 import io.nuls.contract.pocm.PocmContract;
+import io.nuls.contract.pocm.event.PocmConsensusDepositEvent;
+import io.nuls.contract.pocm.event.PocmConsolidateDepositEvent;
 import io.nuls.contract.pocm.event.PocmRemoveAgentEvent;
+import io.nuls.contract.pocm.manager.deposit.AgentInfoCache;
 import io.nuls.contract.pocm.manager.deposit.DepositOthersManager;
+import io.nuls.contract.pocm.model.AgentSnapshot;
 import io.nuls.contract.pocm.model.ConsensusAgentDepositInfo;
 import io.nuls.contract.pocm.model.ConsensusAwardInfo;
+import io.nuls.contract.pocm.model.DepositAllocation;
 import io.nuls.contract.pocm.model.UserInfo;
 import io.nuls.contract.pocm.util.PocmUtil;
 import io.nuls.contract.sdk.Address;
@@ -56,6 +61,11 @@ public class ConsensusManager {
     public static final String ACTIVE_AGENT = "1";
     // 可用金额
     private BigInteger availableAmount = BigInteger.ZERO;
+    // 流动性储备，可用金额中保留此部分不委托，小额退出直接从储备中支付，避免退出委托后又重新委托
+    private int liquidityReserveRatio;// 占共识管理总金额的比例，万分位
+    private BigInteger liquidityReserveAmount = BigInteger.ZERO;// 固定储备金额，与按比例计算的储备取较大值
+    // 延迟委托: 用户质押、退出时只累计可用金额，由flushConsensusDeposits统一委托
+    private boolean deferDeposit = false;
     // 共识奖励金额信息
     private ConsensusAwardInfo awardInfo;
     /**
@@ -64,12 +74,12 @@ public class ConsensusManager {
     private boolean enableDepositOthers = false;
     private DepositOthersManager depositOthersManager;
 
-    private Map<String, UserInfo> userInfo;
+    private UserInfoManager userInfo;
     private Map<String, ConsensusAgentDepositInfo> agentDeposits;
     private PocmContract pocmContract;
     private PocmInfo pi;
 
-    public ConsensusManager(Map<String, UserInfo> userInfo,
+    public ConsensusManager(UserInfoManager userInfo,
                             Map<String, ConsensusAgentDepositInfo> agentDeposits,
                             PocmContract pocmContract, PocmInfo pi) {
         awardInfo = new ConsensusAwardInfo(Msg.address().toString());
@@ -101,7 +111,7 @@ public class ConsensusManager {
         depositOthersManager.modifyMinJoinDeposit(MIN_JOIN_DEPOSIT);
     }
 
-    public String[] addOtherAgent(String agentHash) {
+    public AgentSnapshot addOtherAgent(String agentHash) {
         require(enableDepositOthers, "This feature is not turned on");
         return depositOthersManager.addOtherAgent(agentHash);
     }
@@ -122,11 +132,15 @@ public class ConsensusManager {
      */
     public void createOrDepositIfPermitted(BigInteger value) {
         availableAmount = availableAmount.add(value);
+        if (deferDeposit) {
+            return;
+        }
         /**
-         * 委托其他节点
+         * 委托其他节点，保留流动性储备
          */
-        if(availableAmount.compareTo(MIN_JOIN_DEPOSIT) >= 0) {
-            depositOthersManager.deposit(availableAmount, this);
+        BigInteger depositable = this.depositableAmount();
+        if(depositable.compareTo(MIN_JOIN_DEPOSIT) >= 0) {
+            depositOthersManager.deposit(depositable, this);
         }
     }
 
@@ -134,14 +148,59 @@ public class ConsensusManager {
      * 当可用金额达到最小可委托金额时，合约拥有者可手动委托合约节点
      */
     public void depositManually() {
-        BigInteger amount = availableAmount;
+        BigInteger amount = this.depositableAmount();
         require(amount.compareTo(MIN_JOIN_DEPOSIT) >= 0, "The available amount is not enough to stake the node");
         require(depositOthersManager.otherAgentsSize() > 0, "No consensus node added");
         /**
          * 委托其他节点
          */
-        BigInteger actualDeposit = depositOthersManager.deposit(availableAmount, this);
-        require(actualDeposit.compareTo(BigInteger.ZERO) > 0, "All consensus nodes have been fully staked");
+        DepositAllocation allocation = depositOthersManager.deposit(amount, this);
+        require(allocation.getActualDeposit().compareTo(BigInteger.ZERO) > 0, "All consensus nodes have been fully staked");
+        emit(new PocmConsensusDepositEvent(allocation.getActualDeposit(), allocation.getVisitedAgents(),
+                allocation.getDepositCount(), allocation.getRemovedAgents()));
+    }
+
+    /**
+     * 把累计的可用金额一次性委托到共识节点，金额不足或没有节点时不做处理
+     *
+     * @return 实际委托的金额
+     */
+    public BigInteger flushDeposits() {
+        BigInteger amount = this.depositableAmount();
+        if (amount.compareTo(MIN_JOIN_DEPOSIT) < 0 || depositOthersManager.otherAgentsSize() == 0) {
+            return BigInteger.ZERO;
+        }
+        DepositAllocation allocation = depositOthersManager.deposit(amount, this);
+        if (allocation.getActualDeposit().compareTo(BigInteger.ZERO) > 0) {
+            emit(new PocmConsensusDepositEvent(allocation.getActualDeposit(), allocation.getVisitedAgents(),
+                    allocation.getDepositCount(), allocation.getRemovedAgents()));
+        }
+        return allocation.getActualDeposit();
+    }
+
+    /**
+     * 合并同一节点上的多笔委托
+     *
+     * @param maxWithdrawals 本次最多退出的委托数量
+     * @return 被合并掉的委托数量
+     */
+    public int consolidateDeposits(int maxWithdrawals) {
+        require(maxWithdrawals >= 2, "maxWithdrawals not good");
+        int merged = depositOthersManager.consolidate(maxWithdrawals, this);
+        emit(new PocmConsolidateDepositEvent(merged, depositOthersManager.depositCount()));
+        return merged;
+    }
+
+    public void modifyDepositPolicy(int depositPolicy) {
+        depositOthersManager.modifyDepositPolicy(depositPolicy);
+    }
+
+    public void modifyWithdrawPolicy(int withdrawPolicy) {
+        depositOthersManager.modifyWithdrawPolicy(withdrawPolicy);
+    }
+
+    public void modifyDeferDeposit(boolean deferDeposit) {
+        this.deferDeposit = deferDeposit;
     }
 
     public Set<String> getAgents() {
@@ -155,6 +214,17 @@ public class ConsensusManager {
      * @return true - 退出委托后余额足够, false - 退出委托，可用余额不足以退还押金
      */
     public boolean withdrawIfPermittedWrapper(BigInteger value) {
+        // 退出委托和重新委托共用同一份节点信息缓存
+        AgentInfoCache agentInfoCache = depositOthersManager.getAgentInfoCache();
+        agentInfoCache.open();
+        try {
+            return this.withdrawIfPermitted(value);
+        } finally {
+            agentInfoCache.close();
+        }
+    }
+
+    private boolean withdrawIfPermitted(BigInteger value) {
         if (availableAmount.compareTo(value) >= 0) {
             availableAmount = availableAmount.subtract(value);
             return true;
@@ -169,14 +239,54 @@ public class ConsensusManager {
         }
         availableAmount = availableAmount.subtract(value);
         /**
-         * 若可用金额足够，则委托其他节点
+         * 若超出流动性储备的可用金额足够，则委托其他节点
          */
-        if(availableAmount.compareTo(MIN_JOIN_DEPOSIT) >= 0) {
-            depositOthersManager.deposit(availableAmount, this);
+        BigInteger depositable = this.depositableAmount();
+        if(!deferDeposit && depositable.compareTo(MIN_JOIN_DEPOSIT) >= 0) {
+            depositOthersManager.deposit(depositable, this);
         }
         return true;
     }
 
+    /**
+     * 设置流动性储备
+     *
+     * @param ratio  占共识管理总金额的比例，万分位
+     * @param amount 固定储备金额
+     */
+    public void modifyLiquidityReserve(int ratio, BigInteger amount) {
+        require(ratio >= 0 && ratio < 10000, "Liquidity reserve ratio not good");
+        require(amount.compareTo(BigInteger.ZERO) >= 0, "Liquidity reserve amount not good");
+        this.liquidityReserveRatio = ratio;
+        this.liquidityReserveAmount = amount;
+    }
+
+    /**
+     * 流动性储备目标金额，共识管理总金额包括可用金额和已委托金额
+     */
+    public BigInteger getLiquidityReserve() {
+        BigInteger reserve = liquidityReserveAmount;
+        if (liquidityReserveRatio > 0) {
+            BigInteger managed = availableAmount;
+            if (enableDepositOthers) {
+                managed = managed.add(depositOthersManager.otherDepositLockedAmount());
+            }
+            BigInteger byRatio = managed.multiply(BigInteger.valueOf(liquidityReserveRatio)).divide(PocmUtil.TEN_THOUSAND);
+            if (byRatio.compareTo(reserve) > 0) {
+                reserve = byRatio;
+            }
+        }
+        return reserve;
+    }
+
+    /**
+     * 可用金额中超出流动性储备、可以委托的部分
+     */
+    private BigInteger depositableAmount() {
+        BigInteger depositable = availableAmount.subtract(this.getLiquidityReserve());
+        return depositable.compareTo(BigInteger.ZERO) > 0 ? depositable : BigInteger.ZERO;
+    }
+
     /**
      * 转移共识奖励金额
      */
@@ -263,7 +373,6 @@ public class ConsensusManager {
     private void removeAgentInner(String agentHash, boolean emergency) {
         require(pi.openConsensus, "Consensus is not turned on");
         this.remove(agentHash);
-        emit(new PocmRemoveAgentEvent(agentHash));
 
         //1.共识节点的创建者先领取奖励
         ConsensusAgentDepositInfo agentDepositInfo = agentDeposits.get(agentHash);
@@ -275,25 +384,31 @@ public class ConsensusManager {
             if (!emergency) {
                 // 存在抵押记录，领取奖励
                 pocmContract.receiveAwardsByAddress(new Address(userAddress));
+            } else {
+                // 紧急删除时未结算的奖励不再发放
+                pi.rewardForfeited = pi.rewardForfeited.add(user.pendingReward(pi.accPerShare));
             }
 
             //2.共识节点的创建者退出
-            BigInteger agentAmount = user.getAgentAmount();
+            long agentAmount = user.getAgentAmount();
             boolean openNodeAward = user.isOpenNodeAward();
             // 如果共识节点有糖果奖励，扣减user的可用抵押金，扣减项目的总抵押金
             if (openNodeAward) {
-                user.subAmount(BigInteger.ZERO, agentAmount);
-                pi.subLpSupply(agentAmount);
+                user.subAmount(0, agentAmount);
+                pi.subLpSupply(BigInteger.valueOf(agentAmount));
             }
-            if (user.getAvailableAmount().compareTo(BigInteger.ZERO) > 0) {
-                user.setRewardDebt(user.getAvailableAmount().multiply(pi.accPerShare).divide(pi._1e12));
-                user.setAgentAmount(BigInteger.ZERO);
+            // 紧急删除节点时保留有已结算奖励的用户，可继续领取
+            if (user.getAvailableAmount() > 0 || user.hasAccruedReward()) {
+                user.updateRewardDebt(pi.accPerShare);
+                user.setAgentAmount(0);
                 user.setOpenNodeAward(false);
             } else {
                 userInfo.remove(userAddress);
             }
         }
         agentDeposits.remove(agentHash);
+        // 在节点创建者领取奖励、退出之后发出，链下索引按事件顺序重放时池子状态已是最新
+        emit(new PocmRemoveAgentEvent(agentHash, emergency));
     }
 
     public void removeAgentInner(String agentHash) {
@@ -304,11 +419,44 @@ public class ConsensusManager {
         return depositOthersManager.consensusEmergencyWithdraw(joinAgentHash, this);
     }
 
+    public String depositListPage(int offset, int limit) {
+        require(enableDepositOthers, "This feature is not turned on");
+        return depositOthersManager.depositListPage(offset, limit);
+    }
+
+    public String agentsPage(int offset, int limit) {
+        require(enableDepositOthers, "This feature is not turned on");
+        return depositOthersManager.agentsPage(offset, limit);
+    }
+
+    /**
+     * 与toString相同的字段，委托信息只包含汇总
+     */
+    public String summary() {
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"availableAmount\":")
+                .append('\"').append(toNuls(availableAmount).toPlainString()).append('\"');
+        sb.append(",\"deferDeposit\":").append(deferDeposit);
+        sb.append(",\"liquidityReserve\":")
+                .append('\"').append(toNuls(this.getLiquidityReserve()).toPlainString()).append('\"');
+        sb.append(",\"awardInfo\":")
+                .append(awardInfo.toString());
+        if(enableDepositOthers) {
+            sb.append(",\"depositOthersManager\":")
+                    .append(depositOthersManager.summary());
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("{");
         sb.append("\"availableAmount\":")
                 .append('\"').append(toNuls(availableAmount).toPlainString()).append('\"');
+        sb.append(",\"deferDeposit\":").append(deferDeposit);
+        sb.append(",\"liquidityReserve\":")
+                .append('\"').append(toNuls(this.getLiquidityReserve()).toPlainString()).append('\"');
         sb.append(",\"awardInfo\":")
                 .append(awardInfo.toString());
         if(enableDepositOthers) {
@@ -23,13 +23,17 @@
  */
 package io.nuls.contract.pocm.manager;
 
+import io.nuls.contract.pocm.event.PocmPoolUpdateEvent;
 import io.nuls.contract.pocm.util.CandyToken;
+import io.nuls.contract.pocm.util.UInt128;
 import io.nuls.contract.sdk.Address;
 import io.nuls.contract.sdk.Block;
 import io.nuls.contract.sdk.Msg;
 
 import java.math.BigInteger;
 
+import static io.nuls.contract.sdk.Utils.emit;
+
 /**
  * @author: PierreLuo
  * @date: 2021/9/9
@@ -46,9 +50,10 @@ public class PocmInfo {
     public int candyAssetId;// assetId of candy token contract.
     public boolean isNRC20Candy;//糖果是否是NRC20资产
     public Long lastRewardBlock;  // Last block number that token distribution occurs.
-    public BigInteger accPerShare;    // Accumulated token per share, times 1e12. See below.
+    public UInt128 accPerShare;    // Accumulated token per share, times 1e12. See below.
     public BigInteger candyPerBlock;
     private BigInteger lpSupply = BigInteger.ZERO; // 抵押总量
+    private BigInteger candyBalance = BigInteger.ZERO; // 合约持有的糖果数量(内部记账，避免每次查询糖果余额)
     public BigInteger candySupply;// 糖果发行总量
     public int lockedTokenDay;// 获取Token奖励的锁定天数
     public long lockedTime;
@@ -61,12 +66,19 @@ public class PocmInfo {
     public BigInteger c = BigInteger.TEN;
     public int operatingModel;
     public int rewardDrawRatioForLp;
+    public BigInteger pendingLpShare = BigInteger.ZERO;// LP模式下已抽取、待转入LP合约的糖果
+    public BigInteger lpFlushThreshold = BigInteger.ZERO;// 待转入LP合约的糖果达到此数量才转入，0代表每次领取都转入
+    public BigInteger rewardClaimThreshold = BigInteger.ZERO;// 质押、退出时已结算奖励达到此数量才发放，0代表每次都发放
+    public BigInteger rewardEmitted = BigInteger.ZERO;// 池子累计计入accPerShare的奖励，截至lastRewardBlock
+    public BigInteger rewardForfeited = BigInteger.ZERO;// 紧急退出、紧急删除节点和糖果不足时未发放的奖励
 
     public void addLpSupply(BigInteger lpSupply) {
         if (this.lpSupply.compareTo(BigInteger.ZERO) == 0 && lpSupply.compareTo(BigInteger.ZERO) > 0) {
-            BigInteger candyBalance = candyTokenWrapper.balanceOf(Msg.address());
+            // 直接转入的糖果不在记账中，重新计算结束高度前先按链上余额校正
+            BigInteger candyBalance = reconcileCandyBalance();
             BigInteger blockCount = candyBalance.divide(candyPerBlock);
             this.endBlock = Block.number() + blockCount.longValue();
+            this.emitPoolUpdate();
         }
         this.lpSupply = this.lpSupply.add(lpSupply);
     }
@@ -74,17 +86,46 @@ public class PocmInfo {
     public void subLpSupply(BigInteger lpSupply) {
         this.lpSupply = this.lpSupply.subtract(lpSupply);
         if (this.lpSupply.compareTo(BigInteger.ZERO) == 0) {
-            BigInteger candyBalance = candyTokenWrapper.balanceOf(Msg.address());
+            BigInteger candyBalance = reconcileCandyBalance();
             if (candyBalance.compareTo(BigInteger.ZERO) == 0) {
                 this.endBlock = Block.number();
             } else {
                 // time: 127174492800 is 6000-01-01, blockCount = time/10 = 12717449280
                 this.endBlock = Block.number() + 12717449280L;
             }
+            this.emitPoolUpdate();
         }
     }
 
+    /**
+     * accPerShare、lastRewardBlock或endBlock变化后调用
+     */
+    public void emitPoolUpdate() {
+        emit(new PocmPoolUpdateEvent(accPerShare.toBigInteger(), lastRewardBlock, endBlock));
+    }
+
     public BigInteger getLpSupply() {
         return this.lpSupply;
     }
+
+    public BigInteger getCandyBalance() {
+        return this.candyBalance;
+    }
+
+    public void addCandyBalance(BigInteger value) {
+        this.candyBalance = this.candyBalance.add(value);
+    }
+
+    public void subCandyBalance(BigInteger value) {
+        this.candyBalance = this.candyBalance.subtract(value);
+    }
+
+    /**
+     * 按链上余额校正糖果记账，用于直接转入合约的糖果，待转入LP合约的糖果不计入
+     */
+    public BigInteger reconcileCandyBalance() {
+        BigInteger balance = candyTokenWrapper.balanceOf(Msg.address()).subtract(pendingLpShare);
+        this.candyBalance = balance.compareTo(BigInteger.ZERO) > 0 ? balance : BigInteger.ZERO;
+        return this.candyBalance;
+    }
 }
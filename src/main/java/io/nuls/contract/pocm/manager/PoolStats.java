@@ -0,0 +1,96 @@
+package io.nuls.contract.pocm.manager;
+
+import java.math.BigInteger;
+
+import static io.nuls.contract.pocm.util.PocmUtil.STATS_BUCKET_BOUNDS;
+import static io.nuls.contract.pocm.util.PocmUtil.TOP_STAKERS_SIZE;
+
+/**
+ * 质押用户的统计，用户抵押金额变化时增量更新，查询时不遍历用户(前几名不精确时除外，见{@link TopStakers})
+ * 统计的是用户自己的抵押金额，不含共识节点创建者的保证金
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class PoolStats {
+
+    // 抵押金额大于0的用户数量
+    private int activeStakers;
+    private BigInteger totalStake = BigInteger.ZERO;
+    // 按抵押金额分段的用户数量，分段的下限见STATS_BUCKET_BOUNDS
+    private int[] buckets = new int[STATS_BUCKET_BOUNDS.length + 1];
+    private TopStakers topStakers = new TopStakers(TOP_STAKERS_SIZE);
+
+    /**
+     * 用户的抵押金额由previous变为current，新增用户previous为0，删除用户current为0
+     */
+    public void update(String address, long previous, long current) {
+        if (previous == current) {
+            return;
+        }
+        if (previous > 0) {
+            activeStakers--;
+            buckets[bucketOf(previous)]--;
+        }
+        if (current > 0) {
+            activeStakers++;
+            buckets[bucketOf(current)]++;
+        }
+        totalStake = totalStake.add(BigInteger.valueOf(current - previous));
+        topStakers.update(address, previous, current, activeStakers);
+    }
+
+    private int bucketOf(long amount) {
+        int i = 0;
+        while (i < STATS_BUCKET_BOUNDS.length && amount >= STATS_BUCKET_BOUNDS[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    public int getActiveStakers() {
+        return activeStakers;
+    }
+
+    public BigInteger getTotalStake() {
+        return totalStake;
+    }
+
+    public BigInteger averageStake() {
+        if (activeStakers == 0) {
+            return BigInteger.ZERO;
+        }
+        return totalStake.divide(BigInteger.valueOf(activeStakers));
+    }
+
+    public TopStakers getTopStakers() {
+        return topStakers;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"activeStakers\":").append(activeStakers);
+        sb.append(",\"totalStake\":\"").append(totalStake).append('\"');
+        sb.append(",\"averageStake\":\"").append(averageStake()).append('\"');
+        sb.append(",\"buckets\":[");
+        for (int i = 0; i < buckets.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"min\":\"").append(i == 0 ? 0 : STATS_BUCKET_BOUNDS[i - 1]).append('\"');
+            sb.append(",\"count\":").append(buckets[i]).append('}');
+        }
+        sb.append("],\"topStakers\":[");
+        for (int i = 0; i < topStakers.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"address\":\"").append(topStakers.addressAt(i)).append('\"');
+            sb.append(",\"amount\":\"").append(topStakers.amountAt(i)).append("\"}");
+        }
+        sb.append(']');
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,143 @@
+package io.nuls.contract.pocm.manager;
+
+/**
+ * 抵押金额最大的前size个用户，按金额降序保存在定长数组中，金额相同时按地址降序
+ * 用户抵押金额变化时只在数组内调整，不为每个用户保存索引节点
+ * <p>
+ * 名单内的用户减少或退出时，名单外可能有金额更大的用户，此时标记为不精确，
+ * 由{@link UserInfoManager#refreshTopStakers}遍历用户重新填充；名单外没有用户时重新变为精确
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class TopStakers {
+
+    private String[] addresses;
+    private long[] amounts;
+    private int count;
+    // 名单是否一定是所有用户中的前size个
+    private boolean exact = true;
+
+    public TopStakers(int size) {
+        this.addresses = new String[size];
+        this.amounts = new long[size];
+    }
+
+    /**
+     * 用户的抵押金额由previous变为current，新增用户previous为0，删除用户current为0
+     *
+     * @param activeStakers 更新后抵押金额大于0的用户数量
+     */
+    public void update(String address, long previous, long current, int activeStakers) {
+        int i = this.indexOf(address);
+        if (i >= 0) {
+            if (current == 0) {
+                this.removeAt(i);
+            } else {
+                amounts[i] = current;
+                this.sift(i);
+            }
+            if (current < previous && activeStakers > count) {
+                exact = false;
+            }
+        } else if (current > 0) {
+            this.offer(address, current);
+        }
+        if (!exact && activeStakers == count) {
+            exact = true;
+        }
+    }
+
+    /**
+     * 金额排在名单内的用户加入名单，名单已满时移除排在最后的用户
+     */
+    void offer(String address, long amount) {
+        int size = addresses.length;
+        if (count < size) {
+            addresses[count] = address;
+            amounts[count] = amount;
+            count++;
+        } else if (size > 0 && before(address, amount, addresses[count - 1], amounts[count - 1])) {
+            addresses[count - 1] = address;
+            amounts[count - 1] = amount;
+        } else {
+            return;
+        }
+        this.sift(count - 1);
+    }
+
+    void clear() {
+        for (int i = 0; i < count; i++) {
+            addresses[i] = null;
+        }
+        count = 0;
+        exact = true;
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public String addressAt(int i) {
+        return addresses[i];
+    }
+
+    public long amountAt(int i) {
+        return amounts[i];
+    }
+
+    private int indexOf(String address) {
+        for (int i = 0; i < count; i++) {
+            if (addresses[i].equals(address)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int i) {
+        count--;
+        for (int j = i; j < count; j++) {
+            addresses[j] = addresses[j + 1];
+            amounts[j] = amounts[j + 1];
+        }
+        addresses[count] = null;
+    }
+
+    /**
+     * 第i个用户的金额变化后，移动到排序后的位置
+     */
+    private void sift(int i) {
+        String address = addresses[i];
+        long amount = amounts[i];
+        int j = i;
+        while (j > 0 && before(address, amount, addresses[j - 1], amounts[j - 1])) {
+            addresses[j] = addresses[j - 1];
+            amounts[j] = amounts[j - 1];
+            j--;
+        }
+        if (j == i) {
+            while (j < count - 1 && before(addresses[j + 1], amounts[j + 1], address, amount)) {
+                addresses[j] = addresses[j + 1];
+                amounts[j] = amounts[j + 1];
+                j++;
+            }
+        }
+        addresses[j] = address;
+        amounts[j] = amount;
+    }
+
+    /**
+     * 用户a排在用户b之前
+     */
+    private static boolean before(String a, long amountA, String b, long amountB) {
+        if (amountA != amountB) {
+            return amountA > amountB;
+        }
+        return a.compareTo(b) > 0;
+    }
+}
@@ -0,0 +1,103 @@
+package io.nuls.contract.pocm.manager;
+
+import io.nuls.contract.pocm.model.UserInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 质押用户信息管理
+ * 在用户信息之外维护一个有序的地址列表，用于分批遍历所有用户，避免每次复制整个用户集合
+ * 地址在列表中的位置保存在UserInfo中，不再单独维护位置索引
+ * 用户增删和抵押金额变化时同步更新质押统计
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class UserInfoManager {
+
+    private Map<String, UserInfo> userInfo = new HashMap<String, UserInfo>();
+    // 质押用户地址列表，删除时用最后一个地址补位
+    private List<String> userList = new ArrayList<String>();
+    // 质押用户的统计
+    private PoolStats stats = new PoolStats();
+
+    public UserInfo get(String address) {
+        return userInfo.get(address);
+    }
+
+    public boolean contains(String address) {
+        return userInfo.containsKey(address);
+    }
+
+    public void put(String address, UserInfo user) {
+        UserInfo previous = userInfo.put(address, user);
+        if (previous == null) {
+            user.setIndex(userList.size());
+            userList.add(address);
+            stats.update(address, 0, user.getAmount());
+        } else {
+            user.setIndex(previous.getIndex());
+            stats.update(address, previous.getAmount(), user.getAmount());
+        }
+    }
+
+    /**
+     * 已存在的用户修改抵押金额后调用，更新统计
+     *
+     * @param previousAmount 修改前的抵押金额
+     */
+    public void amountChanged(UserInfo user, long previousAmount) {
+        stats.update(userList.get(user.getIndex()), previousAmount, user.getAmount());
+    }
+
+    public UserInfo remove(String address) {
+        UserInfo removed = userInfo.remove(address);
+        if (removed == null) {
+            return null;
+        }
+        stats.update(address, removed.getAmount(), 0);
+        int index = removed.getIndex();
+        int last = userList.size() - 1;
+        String lastAddress = userList.remove(last);
+        if (index != last) {
+            userList.set(index, lastAddress);
+            userInfo.get(lastAddress).setIndex(index);
+        }
+        return removed;
+    }
+
+    public PoolStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 抵押金额最大的用户名单不精确时，遍历所有用户重新填充
+     */
+    public void refreshTopStakers() {
+        TopStakers top = stats.getTopStakers();
+        if (top.isExact()) {
+            return;
+        }
+        top.clear();
+        for (String address : userList) {
+            long amount = userInfo.get(address).getAmount();
+            if (amount > 0) {
+                top.offer(address, amount);
+            }
+        }
+    }
+
+    public int size() {
+        return userList.size();
+    }
+
+    /**
+     * 按位置获取用户地址，删除用户后位置会发生变化，倒序遍历时不会遗漏用户
+     */
+    public String addressAt(int index) {
+        return userList.get(index);
+    }
+}
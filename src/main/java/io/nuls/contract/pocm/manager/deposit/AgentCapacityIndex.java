@@ -0,0 +1,114 @@
+package io.nuls.contract.pocm.manager.deposit;
+
+import io.nuls.contract.pocm.util.AvlTree;
+
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 节点剩余可委托额度索引，按额度升序排列(AVL树)
+ * 额度为最近一次节点信息推算的估计值，委托前需按最新的节点信息刷新
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class AgentCapacityIndex {
+
+    // 额度相同时按加入顺序排列
+    private AvlTree<CapacityEntry> tree = new AvlTree<CapacityEntry>(new Comparator<CapacityEntry>() {
+        @Override
+        public int compare(CapacityEntry a, CapacityEntry b) {
+            int result = a.capacity.compareTo(b.capacity);
+            if (result != 0) {
+                return result;
+            }
+            return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+        }
+    });
+    private long sequence;
+    // 节点hash -> 树中的元素
+    private Map<String, CapacityEntry> byAgent = new HashMap<String, CapacityEntry>();
+
+    /**
+     * 新增或更新节点的剩余额度
+     */
+    public void put(String agentHash, BigInteger capacity) {
+        if (capacity.compareTo(BigInteger.ZERO) < 0) {
+            capacity = BigInteger.ZERO;
+        }
+        CapacityEntry entry = byAgent.get(agentHash);
+        if (entry != null) {
+            if (entry.capacity.compareTo(capacity) == 0) {
+                return;
+            }
+            tree.remove(entry);
+        } else {
+            entry = new CapacityEntry(agentHash);
+            byAgent.put(agentHash, entry);
+        }
+        entry.capacity = capacity;
+        entry.sequence = ++sequence;
+        tree.add(entry);
+    }
+
+    /**
+     * 在已有额度上增减，节点不存在时不做处理
+     */
+    public void add(String agentHash, BigInteger value) {
+        CapacityEntry entry = byAgent.get(agentHash);
+        if (entry != null) {
+            this.put(agentHash, entry.capacity.add(value));
+        }
+    }
+
+    public void remove(String agentHash) {
+        CapacityEntry entry = byAgent.remove(agentHash);
+        if (entry != null) {
+            tree.remove(entry);
+        }
+    }
+
+    public BigInteger capacity(String agentHash) {
+        CapacityEntry entry = byAgent.get(agentHash);
+        return entry == null ? null : entry.capacity;
+    }
+
+    public boolean contains(String agentHash) {
+        return byAgent.containsKey(agentHash);
+    }
+
+    public int size() {
+        return byAgent.size();
+    }
+
+    /**
+     * 剩余额度最大的节点
+     */
+    public String last() {
+        CapacityEntry entry = tree.last();
+        return entry == null ? null : entry.agentHash;
+    }
+
+    /**
+     * 剩余额度大于或等于amount的额度最小的节点
+     */
+    public String ceiling(BigInteger amount) {
+        // 加入顺序从1开始，0排在额度相同的节点之前
+        CapacityEntry probe = new CapacityEntry(null);
+        probe.capacity = amount;
+        CapacityEntry entry = tree.ceiling(probe);
+        return entry == null ? null : entry.agentHash;
+    }
+
+    private static class CapacityEntry {
+        private String agentHash;
+        private BigInteger capacity;
+        private long sequence;
+
+        CapacityEntry(String agentHash) {
+            this.agentHash = agentHash;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.nuls.contract.pocm.manager.deposit;
+
+import io.nuls.contract.pocm.model.AgentSnapshot;
+import io.nuls.contract.sdk.Utils;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单笔交易内 cs_getContractAgentInfo 查询结果的缓存
+ * <p>
+ * 由 open/close 界定缓存的有效范围，最外层 open 时清空缓存，最外层 close 时丢弃缓存，
+ * 因此缓存不会跨交易使用；范围之外的查询不做缓存
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class AgentInfoCache {
+
+    private Map<String, AgentSnapshot> snapshots = new HashMap<String, AgentSnapshot>();
+    private int depth;
+
+    public void open() {
+        if (depth == 0) {
+            snapshots.clear();
+        }
+        depth++;
+    }
+
+    public void close() {
+        depth--;
+        if (depth == 0) {
+            snapshots.clear();
+        }
+    }
+
+    /**
+     * @return 节点信息，节点不存在则返回null
+     */
+    public AgentSnapshot get(String agentHash) {
+        if (depth > 0 && snapshots.containsKey(agentHash)) {
+            return snapshots.get(agentHash);
+        }
+        Object agentInfo = Utils.invokeExternalCmd("cs_getContractAgentInfo", new String[]{agentHash});
+        AgentSnapshot snapshot = agentInfo == null ? null : new AgentSnapshot(agentHash, (String[]) agentInfo);
+        if (depth > 0) {
+            snapshots.put(agentHash, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 本合约委托或退出委托后，同步节点的总委托金额
+     */
+    public void addTotalDeposit(String agentHash, BigInteger value) {
+        AgentSnapshot snapshot = snapshots.get(agentHash);
+        if (snapshot != null) {
+            snapshot.addTotalDeposit(value);
+        }
+    }
+
+    public void invalidate(String agentHash) {
+        snapshots.remove(agentHash);
+    }
+}
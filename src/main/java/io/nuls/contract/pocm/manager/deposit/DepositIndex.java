@@ -0,0 +1,181 @@
+package io.nuls.contract.pocm.manager.deposit;
+
+import io.nuls.contract.pocm.model.ConsensusDepositInfo;
+import io.nuls.contract.pocm.util.AvlTree;
+
+import java.math.BigInteger;
+import java.util.*;
+
+import static io.nuls.contract.sdk.Utils.require;
+
+/**
+ * 委托信息索引，按委托金额升序排列(AVL树)，同时按委托交易hash和节点hash建立索引
+ * 插入、删除、按金额查找都是O(log n)
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class DepositIndex {
+
+    // 金额相同时按加入顺序排列
+    private AvlTree<DepositEntry> tree = new AvlTree<DepositEntry>(new Comparator<DepositEntry>() {
+        @Override
+        public int compare(DepositEntry a, DepositEntry b) {
+            int result = a.info.getDeposit().compareTo(b.info.getDeposit());
+            if (result != 0) {
+                return result;
+            }
+            return a.sequence < b.sequence ? -1 : (a.sequence == b.sequence ? 0 : 1);
+        }
+    });
+    private long sequence;
+    // 所有委托金额的合计
+    private BigInteger total = BigInteger.ZERO;
+    // 委托交易hash -> 树中的元素
+    private Map<String, DepositEntry> byHash = new HashMap<String, DepositEntry>();
+    // 节点hash -> 委托交易hash
+    private Map<String, Set<String>> byAgent = new HashMap<String, Set<String>>();
+
+    public void add(ConsensusDepositInfo info) {
+        String hash = info.getHash();
+        require(!byHash.containsKey(hash), "Duplicate deposit hash");
+        DepositEntry entry = new DepositEntry(info, ++sequence);
+        tree.add(entry);
+        byHash.put(hash, entry);
+        total = total.add(info.getDeposit());
+        Set<String> hashes = byAgent.get(info.getAgentHash());
+        if (hashes == null) {
+            hashes = new HashSet<String>();
+            byAgent.put(info.getAgentHash(), hashes);
+        }
+        hashes.add(hash);
+    }
+
+    /**
+     * @return 被删除的委托信息，不存在则返回null
+     */
+    public ConsensusDepositInfo remove(String hash) {
+        DepositEntry entry = byHash.remove(hash);
+        if (entry == null) {
+            return null;
+        }
+        tree.remove(entry);
+        total = total.subtract(entry.info.getDeposit());
+        String agentHash = entry.info.getAgentHash();
+        Set<String> hashes = byAgent.get(agentHash);
+        hashes.remove(hash);
+        if (hashes.isEmpty()) {
+            byAgent.remove(agentHash);
+        }
+        return entry.info;
+    }
+
+    public ConsensusDepositInfo get(String hash) {
+        DepositEntry entry = byHash.get(hash);
+        return entry == null ? null : entry.info;
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    public boolean isEmpty() {
+        return tree.isEmpty();
+    }
+
+    public void clear() {
+        tree.clear();
+        total = BigInteger.ZERO;
+        byHash.clear();
+        byAgent.clear();
+    }
+
+    public BigInteger total() {
+        return total;
+    }
+
+    /**
+     * 金额最小的委托
+     */
+    public ConsensusDepositInfo first() {
+        return info(tree.first());
+    }
+
+    /**
+     * 金额最大的委托
+     */
+    public ConsensusDepositInfo last() {
+        return info(tree.last());
+    }
+
+    /**
+     * 金额大于或等于amount的最小的委托
+     */
+    public ConsensusDepositInfo ceiling(BigInteger amount) {
+        // 加入顺序从1开始，0排在金额相同的委托之前
+        return info(tree.ceiling(new DepositEntry(new ConsensusDepositInfo(null, null, amount), 0)));
+    }
+
+    /**
+     * 节点上的所有委托，与树的顺序一致按金额升序(金额相同时按加入顺序)
+     */
+    public List<ConsensusDepositInfo> agentDeposits(String agentHash) {
+        Comparator<DepositEntry> comparator = tree.comparator();
+        List<DepositEntry> entries = new ArrayList<DepositEntry>();
+        Set<String> hashes = byAgent.get(agentHash);
+        if (hashes != null) {
+            for (String hash : hashes) {
+                DepositEntry entry = byHash.get(hash);
+                // 二分查找插入位置
+                int low = 0;
+                int high = entries.size();
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (comparator.compare(entries.get(mid), entry) < 0) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                entries.add(low, entry);
+            }
+        }
+        return infos(entries);
+    }
+
+    /**
+     * 按金额升序的所有委托
+     */
+    public List<ConsensusDepositInfo> toList() {
+        return infos(tree.toList());
+    }
+
+    /**
+     * 按金额升序从第offset个开始的limit个委托
+     */
+    public List<ConsensusDepositInfo> range(int offset, int limit) {
+        return infos(tree.range(offset, limit));
+    }
+
+    private static ConsensusDepositInfo info(DepositEntry entry) {
+        return entry == null ? null : entry.info;
+    }
+
+    private static List<ConsensusDepositInfo> infos(List<DepositEntry> entries) {
+        List<ConsensusDepositInfo> list = new ArrayList<ConsensusDepositInfo>(entries.size());
+        for (DepositEntry entry : entries) {
+            list.add(entry.info);
+        }
+        return list;
+    }
+
+    private static class DepositEntry {
+        private ConsensusDepositInfo info;
+        private long sequence;
+
+        DepositEntry(ConsensusDepositInfo info, long sequence) {
+            this.info = info;
+            this.sequence = sequence;
+        }
+    }
+}
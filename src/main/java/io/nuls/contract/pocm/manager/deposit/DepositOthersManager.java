@@ -25,14 +25,17 @@ package io.nuls.contract.pocm.manager.deposit;
 
 import io.nuls.contract.pocm.manager.ConsensusManager;
 import io.nuls.contract.pocm.model.AgentInfo;
+import io.nuls.contract.pocm.model.AgentSnapshot;
 import io.nuls.contract.pocm.model.ConsensusDepositInfo;
+import io.nuls.contract.pocm.model.DepositAllocation;
+import io.nuls.contract.sdk.Msg;
 import io.nuls.contract.sdk.Utils;
 
 import java.math.BigInteger;
 import java.util.*;
 
 import static io.nuls.contract.pocm.manager.ConsensusManager.MAX_TOTAL_DEPOSIT;
-import static io.nuls.contract.pocm.util.PocmUtil.toNuls;
+import static io.nuls.contract.pocm.util.PocmUtil.*;
 import static io.nuls.contract.sdk.Utils.require;
 
 /**
@@ -45,12 +48,20 @@ public class DepositOthersManager {
      */
     private Map<String, AgentInfo> otherAgents;
 
-    // 委托信息列表
-    private LinkedList<ConsensusDepositInfo> depositList = new LinkedList<ConsensusDepositInfo>();
+    // 委托信息列表，按金额升序
+    private DepositIndex depositList = new DepositIndex();
     // 委托其他节点的锁定金额
     private BigInteger depositLockedAmount = BigInteger.ZERO;
 
     private BigInteger MIN_JOIN_DEPOSIT;
+    // 单笔交易内的节点信息缓存
+    private AgentInfoCache agentInfoCache = new AgentInfoCache();
+    // 节点剩余可委托额度索引
+    private AgentCapacityIndex capacityIndex = new AgentCapacityIndex();
+    // 选择委托节点的策略
+    private int depositPolicy = DEPOSIT_POLICY_SEQUENTIAL;
+    // 退出委托的策略
+    private int withdrawPolicy = WITHDRAW_POLICY_GREEDY;
 
     public DepositOthersManager() {
         otherAgents = new HashMap<String, AgentInfo>();
@@ -76,114 +87,197 @@ public class DepositOthersManager {
         return depositLockedAmount;
     }
 
-    public String[] addOtherAgent(String agentHash) {
+    public AgentSnapshot addOtherAgent(String agentHash) {
         require(!otherAgents.containsKey(agentHash), "Duplicate node hash");
         otherAgents.put(agentHash, new AgentInfo());
-        Object agentInfo = Utils.invokeExternalCmd("cs_getContractAgentInfo", new String[]{agentHash});
-        require(agentInfo != null, "Invalid node hash");
-        String[] agent = (String[]) agentInfo;
-        // 注销高度，-1代表正常
-        require("-1".equals(agent[8]), "Invalid node");
+        AgentSnapshot agent = agentInfoCache.get(agentHash);
+        require(agent != null, "Invalid node hash");
+        require(agent.isEnabled(), "Invalid node");
+        capacityIndex.put(agentHash, this.capacity(otherAgents.get(agentHash), agent));
         return agent;
     }
 
     private boolean isEnableAgentNode(String agentHash) {
-        Object agentInfo = Utils.invokeExternalCmd("cs_getContractAgentInfo", new String[]{agentHash});
-        boolean isEnabled;
-        if (agentInfo == null ){
-            isEnabled = false;
-        } else {
-            String[] agent = (String[])agentInfo;
-            // 注销高度，-1代表正常
-            isEnabled = "-1".equals(agent[8]);
-        }
-        return isEnabled;
+        AgentSnapshot agent = agentInfoCache.get(agentHash);
+        return agent != null && agent.isEnabled();
     }
 
     public void removeAgent(String agentHash, ConsensusManager consensusManager) {
+        agentInfoCache.open();
+        try {
+            this.removeAgentInner(agentHash, consensusManager);
+        } finally {
+            agentInfoCache.close();
+        }
+    }
+
+    private void removeAgentInner(String agentHash, ConsensusManager consensusManager) {
         BigInteger withdrawAmount = BigInteger.ZERO;
         require(otherAgents.containsKey(agentHash), "Node not exist");
         boolean isEnabled = isEnableAgentNode(agentHash);
         //退出节点委托
-        Iterator<ConsensusDepositInfo> iterator = depositList.iterator();
-        while (iterator.hasNext()){
-            ConsensusDepositInfo depositInfo = iterator.next();
-            if(agentHash.equals(depositInfo.getAgentHash())){
-                if(isEnabled){
-                    this.withdrawOne(depositInfo, consensusManager);
-                }else{
-                    depositLockedAmount = depositLockedAmount.subtract(depositInfo.getDeposit());
-                }
-                iterator.remove();
-                withdrawAmount = withdrawAmount.add(depositInfo.getDeposit());
+        List<ConsensusDepositInfo> agentDepositList = depositList.agentDeposits(agentHash);
+        for (ConsensusDepositInfo depositInfo : agentDepositList) {
+            if(isEnabled){
+                this.withdrawOne(depositInfo, consensusManager);
+            }else{
+                depositLockedAmount = depositLockedAmount.subtract(depositInfo.getDeposit());
             }
+            depositList.remove(depositInfo.getHash());
+            withdrawAmount = withdrawAmount.add(depositInfo.getDeposit());
         }
         if (!isEnabled) {
             consensusManager.addAvailableAmount(withdrawAmount);
         }
         //清除委托节点
         otherAgents.remove(agentHash);
+        capacityIndex.remove(agentHash);
+        agentInfoCache.invalidate(agentHash);
     }
 
-    public BigInteger deposit(BigInteger availableAmount, ConsensusManager consensusManager) {
+    public DepositAllocation deposit(BigInteger availableAmount, ConsensusManager consensusManager) {
         int size = otherAgents.size();
         if(size == 0) {
             // 没有其他节点的共识信息，跳过此流程
-            return BigInteger.ZERO;
+            return new DepositAllocation();
+        }
+        agentInfoCache.open();
+        try {
+            if (depositPolicy == DEPOSIT_POLICY_SEQUENTIAL) {
+                return this.depositCheck(availableAmount, consensusManager);
+            }
+            return this.depositByCapacity(availableAmount, consensusManager);
+        } finally {
+            agentInfoCache.close();
         }
-        BigInteger actualDeposit = this.depositCheck(availableAmount, consensusManager);
-        return actualDeposit;
-    }
-
-    private BigInteger depositCheck(BigInteger availableAmount, ConsensusManager consensusManager) {
-        BigInteger actualDeposit = BigInteger.ZERO;
-        BigInteger[] amounts = new BigInteger[]{availableAmount, actualDeposit};
-        this.depositCheckRecursion(amounts, consensusManager, new HashSet<String>());
-        return amounts[1];
     }
 
-    // avoid ConcurrentModificationException of 'otherAgents'
-    private void depositCheckRecursion(BigInteger[] amounts, ConsensusManager consensusManager, Set<String> exclude) {
-        BigInteger availableAmount = amounts[0];
-        BigInteger actualDeposit = amounts[1];
-        String[] agentInfo;
-        boolean isEnabled;
+    /**
+     * 遍历一次节点，依次填满节点的可委托额度，遇到已注销的节点先记录，遍历结束后再统一移除
+     */
+    private DepositAllocation depositCheck(BigInteger availableAmount, ConsensusManager consensusManager) {
+        DepositAllocation allocation = new DepositAllocation();
+        List<String> disabledAgents = new ArrayList<String>();
         Set<Map.Entry<String, AgentInfo>> entries = otherAgents.entrySet();
         for(Map.Entry<String, AgentInfo> entry : entries) {
             String agentHash = entry.getKey();
-            if (exclude.contains(agentHash)) continue;
             AgentInfo agent = entry.getValue();
-            agentInfo = (String[]) Utils.invokeExternalCmd("cs_getContractAgentInfo", new String[]{agentHash});
+            AgentSnapshot agentInfo = agentInfoCache.get(agentHash);
+            allocation.visit();
             // 用户质押时，若遇到节点注销，则移除节点
-            if (agentInfo == null ){
-                isEnabled = false;
-            } else {
-                // 注销高度，-1代表正常
-                isEnabled = "-1".equals(agentInfo[8]);
-            }
-            if (!isEnabled) {
-                consensusManager.removeAgentInner(agentHash);
-                this.depositCheckRecursion(amounts, consensusManager, exclude);
-                break;
+            if (agentInfo == null || !agentInfo.isEnabled()) {
+                disabledAgents.add(agentHash);
+                continue;
             }
-            exclude.add(agentHash);
-            // 合约节点已委托金额
-            BigInteger totalDeposit = this.moreDeposits(agent, new BigInteger(agentInfo[4]));
-            BigInteger currentAvailable = MAX_TOTAL_DEPOSIT.subtract(totalDeposit);
+            BigInteger currentAvailable = this.capacity(agent, agentInfo);
+            capacityIndex.put(agentHash, currentAvailable);
             if(currentAvailable.compareTo(availableAmount) >= 0) {
                 if(availableAmount.compareTo(MIN_JOIN_DEPOSIT) >= 0) {
                     this.depositOne(agentHash, availableAmount, agent, consensusManager);
-                    actualDeposit = actualDeposit.add(availableAmount);
+                    allocation.deposit(availableAmount);
                 }
                 break;
             } else if(currentAvailable.compareTo(MIN_JOIN_DEPOSIT) >= 0){
                 this.depositOne(agentHash, currentAvailable, agent, consensusManager);
-                actualDeposit = actualDeposit.add(currentAvailable);
+                allocation.deposit(currentAvailable);
                 availableAmount = availableAmount.subtract(currentAvailable);
             }
         }
-        amounts[0] = availableAmount;
-        amounts[1] = actualDeposit;
+        // 遍历结束后再移除，避免遍历'otherAgents'时修改
+        for (String agentHash : disabledAgents) {
+            consensusManager.removeAgentInner(agentHash);
+            allocation.removeAgent();
+        }
+        return allocation;
+    }
+
+    /**
+     * 按剩余额度索引选择节点: 每个节点在本次调用中先按最新的节点信息刷新额度再参与选择
+     * DEPOSIT_POLICY_FILL_FIRST - 优先选择能容纳全部金额且额度最小的节点，没有则选择额度最大的节点
+     * DEPOSIT_POLICY_SPREAD_EVENLY - 金额按节点数量平分，每次向额度最大的节点委托一份，每份不少于最小委托金额；
+     * 剩余金额不足最小委托金额时并入当前这一份，避免剩余金额无法委托
+     */
+    private DepositAllocation depositByCapacity(BigInteger availableAmount, ConsensusManager consensusManager) {
+        DepositAllocation allocation = new DepositAllocation();
+        List<String> disabledAgents = new ArrayList<String>();
+        Set<String> refreshed = new HashSet<String>();
+        BigInteger share = null;
+        if (depositPolicy == DEPOSIT_POLICY_SPREAD_EVENLY) {
+            share = availableAmount.divide(BigInteger.valueOf(otherAgents.size()));
+            if (share.compareTo(MIN_JOIN_DEPOSIT) < 0) {
+                share = MIN_JOIN_DEPOSIT;
+            }
+        }
+        while (availableAmount.compareTo(MIN_JOIN_DEPOSIT) >= 0) {
+            String agentHash = null;
+            if (depositPolicy == DEPOSIT_POLICY_FILL_FIRST) {
+                agentHash = capacityIndex.ceiling(availableAmount);
+            }
+            if (agentHash == null) {
+                agentHash = capacityIndex.last();
+            }
+            if (agentHash == null) {
+                break;
+            }
+            if (!refreshed.contains(agentHash)) {
+                refreshed.add(agentHash);
+                AgentSnapshot agentInfo = agentInfoCache.get(agentHash);
+                allocation.visit();
+                // 用户质押时，若遇到节点注销，则移除节点
+                if (agentInfo == null || !agentInfo.isEnabled()) {
+                    disabledAgents.add(agentHash);
+                    capacityIndex.remove(agentHash);
+                } else {
+                    capacityIndex.put(agentHash, this.capacity(otherAgents.get(agentHash), agentInfo));
+                }
+                continue;
+            }
+            BigInteger capacity = capacityIndex.capacity(agentHash);
+            if (capacity.compareTo(MIN_JOIN_DEPOSIT) < 0) {
+                // 额度最大的节点也不足最小委托金额
+                break;
+            }
+            BigInteger amount = capacity.compareTo(availableAmount) >= 0 ? availableAmount : capacity;
+            if (share != null && amount.compareTo(share) > 0 && availableAmount.subtract(share).compareTo(MIN_JOIN_DEPOSIT) >= 0) {
+                amount = share;
+            }
+            this.depositOne(agentHash, amount, otherAgents.get(agentHash), consensusManager);
+            allocation.deposit(amount);
+            availableAmount = availableAmount.subtract(amount);
+        }
+        for (String agentHash : disabledAgents) {
+            consensusManager.removeAgentInner(agentHash);
+            allocation.removeAgent();
+        }
+        return allocation;
+    }
+
+    /**
+     * 节点剩余可委托额度
+     */
+    private BigInteger capacity(AgentInfo agent, AgentSnapshot agentInfo) {
+        // 合约节点已委托金额
+        BigInteger totalDeposit = this.moreDeposits(agent, agentInfo.getTotalDeposit());
+        return MAX_TOTAL_DEPOSIT.subtract(totalDeposit);
+    }
+
+    public void modifyDepositPolicy(int depositPolicy) {
+        require(depositPolicy == DEPOSIT_POLICY_SEQUENTIAL || depositPolicy == DEPOSIT_POLICY_FILL_FIRST
+                || depositPolicy == DEPOSIT_POLICY_SPREAD_EVENLY, "Deposit policy not good");
+        this.depositPolicy = depositPolicy;
+    }
+
+    public int getDepositPolicy() {
+        return depositPolicy;
+    }
+
+    public void modifyWithdrawPolicy(int withdrawPolicy) {
+        require(withdrawPolicy == WITHDRAW_POLICY_GREEDY || withdrawPolicy == WITHDRAW_POLICY_PLANNED, "Withdraw policy not good");
+        this.withdrawPolicy = withdrawPolicy;
+    }
+
+    public int getWithdrawPolicy() {
+        return withdrawPolicy;
     }
 
     private BigInteger moreDeposits(AgentInfo agent, BigInteger totalDepositFromCmd) {
@@ -203,12 +297,23 @@ public class DepositOthersManager {
      * @return actualWithdrawAmount 实际退出的金额(始终大于或等于期望值)
      */
     public void withdrawInner(BigInteger expectWithdrawAmount, ConsensusManager consensusManager) {
+        agentInfoCache.open();
+        try {
+            this.withdrawCheck(expectWithdrawAmount, consensusManager);
+        } finally {
+            agentInfoCache.close();
+        }
+    }
+
+    private void withdrawCheck(BigInteger expectWithdrawAmount, ConsensusManager consensusManager) {
         // 退出所有委托
         if(expectWithdrawAmount.compareTo(depositLockedAmount) >= 0) {
             // 从共识中退出所有金额，则无需返回实际退出金额，内部已返回退出金额
-            this.withdrawWhole(consensusManager, new HashSet<String>());
+            this.withdrawWhole(consensusManager);
             depositLockedAmount = BigInteger.ZERO;
             depositList.clear();
+        } else if (withdrawPolicy == WITHDRAW_POLICY_PLANNED) {
+            this.withdrawPlanned(expectWithdrawAmount, consensusManager);
         } else {
             BigInteger withdrawAmount;
             while (expectWithdrawAmount.compareTo(BigInteger.ZERO) > 0){
@@ -223,42 +328,145 @@ public class DepositOthersManager {
         }
     }
 
+    /**
+     * 按计划退出委托: 先确认计划中的委托所在节点，已注销的节点整体移除(无需退出委托的交易)后按剩余金额重新计划，
+     * 计划中的节点都正常时再依次退出
+     */
+    private void withdrawPlanned(BigInteger expectWithdrawAmount, ConsensusManager consensusManager) {
+        while (expectWithdrawAmount.compareTo(BigInteger.ZERO) > 0 && !depositList.isEmpty()) {
+            List<ConsensusDepositInfo> plan;
+            ConsensusDepositInfo single = depositList.ceiling(expectWithdrawAmount);
+            if (single != null) {
+                // 一笔委托即可覆盖时，金额最小的这笔就是最优计划
+                plan = new ArrayList<ConsensusDepositInfo>();
+                plan.add(single);
+            } else {
+                plan = WithdrawPlanner.plan(depositList.toList(), expectWithdrawAmount, WITHDRAW_PLAN_SEARCH_LIMIT);
+            }
+            boolean agentRemoved = false;
+            for (ConsensusDepositInfo info : plan) {
+                String agentHash = info.getAgentHash();
+                // 同一节点的多笔委托，节点已在前面移除
+                if (!otherAgents.containsKey(agentHash) || isEnableAgentNode(agentHash)) {
+                    continue;
+                }
+                expectWithdrawAmount = expectWithdrawAmount.subtract(otherAgents.get(agentHash).getAgentDeposits());
+                consensusManager.removeAgentInner(agentHash);
+                agentRemoved = true;
+            }
+            if (agentRemoved) {
+                continue;
+            }
+            for (ConsensusDepositInfo info : plan) {
+                this.withdrawOne(info, consensusManager);
+                depositList.remove(info.getHash());
+            }
+            break;
+        }
+    }
+
+    /**
+     * 合并同一节点上的多笔委托: 退出这些委托后按总额重新委托一笔，节点的委托总额不变
+     *
+     * @param maxWithdrawals 本次最多退出的委托数量
+     * @return 被合并掉的委托数量
+     */
+    public int consolidate(int maxWithdrawals, ConsensusManager consensusManager) {
+        agentInfoCache.open();
+        try {
+            return this.consolidateInner(maxWithdrawals, consensusManager);
+        } finally {
+            agentInfoCache.close();
+        }
+    }
+
+    private int consolidateInner(int maxWithdrawals, ConsensusManager consensusManager) {
+        int merged = 0;
+        int budget = maxWithdrawals;
+        // 按节点上最小一笔委托的金额依次处理节点，每个节点按金额升序取委托，预算有限时优先合并最小的碎片
+        Set<String> visited = new HashSet<String>();
+        for (ConsensusDepositInfo smallest : depositList.toList()) {
+            if (budget < 2) {
+                break;
+            }
+            String agentHash = smallest.getAgentHash();
+            if (!visited.add(agentHash)) {
+                continue;
+            }
+            // 保留足够的gas完成当前调用
+            if (merged > 0 && Msg.gasleft() < BATCH_GAS_RESERVE) {
+                break;
+            }
+            AgentInfo agentInfo = otherAgents.get(agentHash);
+            List<ConsensusDepositInfo> agentDepositList = depositList.agentDeposits(agentHash);
+            if (agentInfo == null || agentDepositList.size() < 2 || !isEnableAgentNode(agentHash)) {
+                continue;
+            }
+            int count = Math.min(agentDepositList.size(), budget);
+            BigInteger amount = BigInteger.ZERO;
+            for (int i = 0; i < count; i++) {
+                ConsensusDepositInfo info = agentDepositList.get(i);
+                this.withdrawOne(info, consensusManager);
+                depositList.remove(info.getHash());
+                amount = amount.add(info.getDeposit());
+            }
+            this.depositOne(agentHash, amount, agentInfo, consensusManager);
+            budget -= count;
+            merged += count - 1;
+        }
+        return merged;
+    }
+
+    public int depositCount() {
+        return depositList.size();
+    }
+
     public BigInteger consensusEmergencyWithdraw(String joinAgentHash, ConsensusManager consensusManager) {
         BigInteger withdrawAmount = BigInteger.ZERO;
         //退出节点委托
-        Iterator<ConsensusDepositInfo> iterator = depositList.iterator();
-        while (iterator.hasNext()){
-            ConsensusDepositInfo depositInfo = iterator.next();
-            if(joinAgentHash.equals(depositInfo.getHash())){
-                this.withdrawOne(depositInfo, consensusManager);
-                iterator.remove();
-                withdrawAmount = withdrawAmount.add(depositInfo.getDeposit());
-                break;
-            }
+        ConsensusDepositInfo depositInfo = depositList.get(joinAgentHash);
+        if (depositInfo != null) {
+            this.withdrawOne(depositInfo, consensusManager);
+            depositList.remove(joinAgentHash);
+            withdrawAmount = withdrawAmount.add(depositInfo.getDeposit());
         }
         return withdrawAmount;
     }
 
-    // avoid ConcurrentModificationException of 'depositList'
-    private void withdrawWhole(ConsensusManager consensusManager, Set<String> exclude) {
-        for(ConsensusDepositInfo info : depositList) {
-            if (exclude.contains(info.getHash())) continue;
-            boolean agentRemoved = (this.withdrawOneWithCheck(info, consensusManager).compareTo(BigInteger.ZERO) < 0);
-            if (agentRemoved) {
-                withdrawWhole(consensusManager, exclude);
-                break;
-            } else {
-                exclude.add(info.getHash());
+    /**
+     * 退出所有委托: 先按节点状态把委托分类，已注销的节点整体移除(无需退出委托的交易)，再依次退出正常节点上的委托
+     * 调用方在退出后清空委托列表
+     */
+    private void withdrawWhole(ConsensusManager consensusManager) {
+        Set<String> checkedAgents = new HashSet<String>();
+        List<String> disabledAgents = new ArrayList<String>();
+        for (ConsensusDepositInfo info : depositList.toList()) {
+            String agentHash = info.getAgentHash();
+            if (checkedAgents.contains(agentHash)) {
+                continue;
+            }
+            checkedAgents.add(agentHash);
+            if (!isEnableAgentNode(agentHash)) {
+                disabledAgents.add(agentHash);
             }
         }
+        // 移除节点时会删除节点上的委托，移除完成后再取剩余的委托
+        for (String agentHash : disabledAgents) {
+            consensusManager.removeAgentInner(agentHash);
+        }
+        for (ConsensusDepositInfo info : depositList.toList()) {
+            this.withdrawOne(info, consensusManager);
+        }
     }
 
     private String depositOne(String agentHash, BigInteger depositNa, AgentInfo agent, ConsensusManager consensusManager) {
         String[] args = new String[]{agentHash, depositNa.toString()};
         String txHash = (String) Utils.invokeExternalCmd("cs_contractDeposit", args);
-        this.orderlyAdditionToDepositList(new ConsensusDepositInfo(agentHash, txHash, depositNa));
+        depositList.add(new ConsensusDepositInfo(agentHash, txHash, depositNa));
         depositLockedAmount = depositLockedAmount.add(depositNa);
         agent.add(depositNa);
+        agentInfoCache.addTotalDeposit(agentHash, depositNa);
+        capacityIndex.add(agentHash, depositNa.negate());
         consensusManager.subAvailableAmount(depositNa);
         return txHash;
     }
@@ -285,79 +493,110 @@ public class DepositOthersManager {
         depositLockedAmount = depositLockedAmount.subtract(deposit);
         AgentInfo agent = otherAgents.get(agentHash);
         agent.subtract(deposit);
+        agentInfoCache.addTotalDeposit(agentHash, deposit.negate());
+        capacityIndex.add(agentHash, deposit);
         consensusManager.addAvailableAmount(deposit);
         return txHash;
     }
 
     private BigInteger withdrawLoop(BigInteger expectWithdrawAmount, ConsensusManager consensusManager){
-        if (depositList.size() == 0) {
+        if (depositList.isEmpty()) {
             return BigInteger.ZERO;
         }
-        ConsensusDepositInfo maxDeposit = depositList.getLast();
-        BigInteger realWithdrawAmount = BigInteger.ZERO;
-        //当退出金额大于最大的委托则退出最大委托；否则从小到大遍历找到大于退出金额的第一条委托记录
+        ConsensusDepositInfo maxDeposit = depositList.last();
+        //当退出金额大于最大的委托则退出最大委托；否则找到大于退出金额的最小的一条委托记录（使闲置金额最小）
+        ConsensusDepositInfo info;
         if(expectWithdrawAmount.compareTo(maxDeposit.getDeposit()) >= 0){
-            realWithdrawAmount = this.withdrawOneWithCheck(maxDeposit, consensusManager);
-            boolean depositRemoved = (realWithdrawAmount.compareTo(BigInteger.ZERO) < 0);
-            if (!depositRemoved) {
-                depositList.removeLast();
-            }
+            info = maxDeposit;
         }else{
-            // 找出最小的一笔退出抵押的金额（使闲置金额最小）
-            for(Iterator<ConsensusDepositInfo> iterator = depositList.iterator(); iterator.hasNext();){
-                ConsensusDepositInfo info = iterator.next();
-                if(info.getDeposit().compareTo(expectWithdrawAmount) >= 0) {
-                    realWithdrawAmount = this.withdrawOneWithCheck(info, consensusManager);
-                    boolean depositRemoved = (realWithdrawAmount.compareTo(BigInteger.ZERO) < 0);
-                    // avoid ConcurrentModificationException of 'depositList'
-                    if (!depositRemoved) {
-                        iterator.remove();
-                    }
-                    break;
-                }
-            }
+            info = depositList.ceiling(expectWithdrawAmount);
+        }
+        BigInteger realWithdrawAmount = this.withdrawOneWithCheck(info, consensusManager);
+        boolean depositRemoved = (realWithdrawAmount.compareTo(BigInteger.ZERO) < 0);
+        // 节点已注销时，节点的委托已全部删除
+        if (!depositRemoved) {
+            depositList.remove(info.getHash());
         }
         return realWithdrawAmount.abs();
     }
 
+    public void modifyMinJoinDeposit(BigInteger value) {
+        MIN_JOIN_DEPOSIT = value;
+    }
+
+    public BigInteger getMinJoinDeposit() {
+        return MIN_JOIN_DEPOSIT;
+    }
+
+    public AgentInfoCache getAgentInfoCache() {
+        return agentInfoCache;
+    }
+
     /**
-     * 按金额升序
+     * 按金额升序分页查询委托信息，金额单位为na
      */
-    private void orderlyAdditionToDepositList(ConsensusDepositInfo info) {
-        BigInteger deposit = info.getDeposit();
-        int size = depositList.size();
-        if (size == 0) {
-            depositList.add(info);
-            return;
-        }
-        BigInteger compare;
-        int result;
-        int last = size - 1;
-        for (int i = 0; i < size; i++) {
-            compare = depositList.get(i).getDeposit();
-            result = compare.compareTo(deposit);
-            if (result < 0) {
-                if (i == last) {
-                    depositList.addLast(info);
-                    break;
-                }
-                continue;
-            } else if (result == 0) {
-                depositList.add(i + 1, info);
-                break;
-            } else {
-                depositList.add(i, info);
-                break;
+    public String depositListPage(int offset, int limit) {
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"total\":").append(depositList.size());
+        sb.append(",\"offset\":").append(offset);
+        sb.append(",\"list\":[");
+        List<ConsensusDepositInfo> list = depositList.range(offset, limit);
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
             }
+            sb.append(list.get(i).toString());
         }
+        sb.append("]}");
+        return sb.toString();
     }
 
-    public void modifyMinJoinDeposit(BigInteger value) {
-        MIN_JOIN_DEPOSIT = value;
+    /**
+     * 分页查询委托的节点，金额单位为na；节点之间没有排序，节点不变时分页的顺序不变
+     */
+    public String agentsPage(int offset, int limit) {
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"total\":").append(otherAgents.size());
+        sb.append(",\"offset\":").append(offset);
+        sb.append(",\"list\":[");
+        int index = 0;
+        int count = 0;
+        for (Map.Entry<String, AgentInfo> entry : otherAgents.entrySet()) {
+            if (count >= limit) {
+                break;
+            }
+            if (index++ < offset) {
+                continue;
+            }
+            if (count++ > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"hash\":\"").append(entry.getKey()).append('\"');
+            sb.append(",\"agentDeposits\":\"").append(entry.getValue().getAgentDeposits()).append("\"}");
+        }
+        sb.append("]}");
+        return sb.toString();
     }
 
-    public BigInteger getMinJoinDeposit() {
-        return MIN_JOIN_DEPOSIT;
+    /**
+     * 委托的汇总信息，数量、合计和最大最小金额都由索引维护，不遍历委托
+     */
+    public String summary() {
+        ConsensusDepositInfo min = depositList.first();
+        ConsensusDepositInfo max = depositList.last();
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"agentCount\":").append(otherAgents.size());
+        sb.append(",\"depositCount\":").append(depositList.size());
+        sb.append(",\"depositTotal\":")
+                .append('\"').append(toNuls(depositList.total()).toPlainString()).append('\"');
+        sb.append(",\"minDeposit\":")
+                .append('\"').append(min == null ? "0" : toNuls(min.getDeposit()).toPlainString()).append('\"');
+        sb.append(",\"maxDeposit\":")
+                .append('\"').append(max == null ? "0" : toNuls(max.getDeposit()).toPlainString()).append('\"');
+        sb.append(",\"depositLockedAmount\":")
+                .append('\"').append(toNuls(depositLockedAmount).toPlainString()).append('\"');
+        sb.append('}');
+        return sb.toString();
     }
 
     @Override
@@ -380,7 +619,7 @@ public class DepositOthersManager {
 
         sb.append(",\"depositList\":");
         sb.append('[');
-        for (ConsensusDepositInfo info : depositList) {
+        for (ConsensusDepositInfo info : depositList.toList()) {
             sb.append(info.toString()).append(',');
         }
         if (depositList.size() > 0) {
@@ -0,0 +1,150 @@
+package io.nuls.contract.pocm.manager.deposit;
+
+import io.nuls.contract.pocm.model.ConsensusDepositInfo;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.nuls.contract.pocm.util.PocmUtil.toLongNa;
+
+/**
+ * 退出委托的计划：选出一组委托，使其总额不小于期望退出的金额
+ * 优先使退出委托的交易数量最少，数量相同时使退出后多出的闲置金额最少
+ * <p>
+ * 最少交易数量k由金额最大的前k笔委托确定；在k笔委托的组合中做有上限的深度优先搜索，
+ * 最后一笔按二分查找取刚好能补足差额的委托，超过搜索上限时返回已找到的最优组合
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class WithdrawPlanner {
+
+    // 委托金额，降序
+    private long[] values;
+    // prefix[i] = values[0] + ... + values[i - 1]
+    private long[] prefix;
+    private int n;
+    private int budget;
+
+    private long best;
+    private int[] bestPicks;
+    private int[] picks;
+
+    private WithdrawPlanner(long[] values, int searchLimit) {
+        this.values = values;
+        this.n = values.length;
+        this.prefix = new long[n + 1];
+        for (int i = 0; i < n; i++) {
+            prefix[i + 1] = prefix[i] + values[i];
+        }
+        this.budget = searchLimit;
+    }
+
+    /**
+     * @param deposits    按金额升序的委托列表
+     * @param expect      期望退出的金额
+     * @param searchLimit 搜索的组合数量上限
+     * @return 需要退出的委托，委托总额不足时返回全部委托
+     */
+    public static List<ConsensusDepositInfo> plan(List<ConsensusDepositInfo> deposits, BigInteger expect, int searchLimit) {
+        int size = deposits.size();
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = toLongNa(deposits.get(size - 1 - i).getDeposit());
+        }
+        WithdrawPlanner planner = new WithdrawPlanner(values, searchLimit);
+        int[] indexes = planner.search(toLongNa(expect));
+        List<ConsensusDepositInfo> result = new ArrayList<ConsensusDepositInfo>(indexes.length);
+        for (int index : indexes) {
+            result.add(deposits.get(size - 1 - index));
+        }
+        return result;
+    }
+
+    /**
+     * @return 选中的委托在降序数组中的下标
+     */
+    private int[] search(long need) {
+        if (need <= 0) {
+            return new int[0];
+        }
+        if (prefix[n] <= need) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        // 最少的委托数量
+        int k = 1;
+        while (prefix[k] < need) {
+            k++;
+        }
+        best = prefix[k];
+        bestPicks = new int[k];
+        for (int i = 0; i < k; i++) {
+            bestPicks[i] = i;
+        }
+        picks = new int[k];
+        if (best > need) {
+            this.dfs(0, k, need, 0L);
+        }
+        return bestPicks;
+    }
+
+    /**
+     * @param start 可选委托的起始下标
+     * @param r     还需选择的委托数量
+     * @param need  还需补足的金额
+     * @param sum   已选委托的总额
+     */
+    private void dfs(int start, int r, long need, long sum) {
+        int depth = picks.length - r;
+        if (r == 1) {
+            int j = this.lastAtLeast(start, need);
+            if (j >= 0 && sum + values[j] < best) {
+                picks[depth] = j;
+                best = sum + values[j];
+                System.arraycopy(picks, 0, bestPicks, 0, picks.length);
+            }
+            return;
+        }
+        // 剩余r - 1笔取最小的委托时的增量
+        long minRest = prefix[n] - prefix[n - r + 1];
+        for (int i = start; i <= n - r; i++) {
+            if (budget <= 0 || best == sum + need) {
+                return;
+            }
+            // 从i开始取最大的r笔也不足，之后的下标只会更小
+            if (prefix[i + r] - prefix[i] < need) {
+                return;
+            }
+            if (sum + values[i] + minRest >= best) {
+                continue;
+            }
+            budget--;
+            picks[depth] = i;
+            this.dfs(i + 1, r - 1, need - values[i], sum + values[i]);
+        }
+    }
+
+    /**
+     * 下标不小于start、金额不小于need的最后一笔(即金额最小的)委托，不存在返回-1
+     */
+    private int lastAtLeast(int start, long need) {
+        int lo = start;
+        int hi = n - 1;
+        int result = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] >= need) {
+                result = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,57 @@
+package io.nuls.contract.pocm.model;
+
+import java.math.BigInteger;
+
+/**
+ * cs_getContractAgentInfo 返回的节点信息
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class AgentSnapshot {
+    private String agentHash;
+    // 节点创建者地址
+    private String agentAddress;
+    // 节点创建者的保证金
+    private BigInteger deposit;
+    // 节点的总委托金额
+    private BigInteger totalDeposit;
+    // 注销高度，-1代表正常
+    private long stopHeight;
+
+    public AgentSnapshot(String agentHash, String[] agent) {
+        this.agentHash = agentHash;
+        this.agentAddress = agent[0];
+        this.deposit = new BigInteger(agent[3]);
+        this.totalDeposit = new BigInteger(agent[4]);
+        this.stopHeight = Long.parseLong(agent[8]);
+    }
+
+    public boolean isEnabled() {
+        return stopHeight == -1L;
+    }
+
+    public void addTotalDeposit(BigInteger value) {
+        this.totalDeposit = this.totalDeposit.add(value);
+    }
+
+    public String getAgentHash() {
+        return agentHash;
+    }
+
+    public String getAgentAddress() {
+        return agentAddress;
+    }
+
+    public BigInteger getDeposit() {
+        return deposit;
+    }
+
+    public BigInteger getTotalDeposit() {
+        return totalDeposit;
+    }
+
+    public long getStopHeight() {
+        return stopHeight;
+    }
+}
@@ -0,0 +1,76 @@
+package io.nuls.contract.pocm.model;
+
+/**
+ * 分批处理所有用户时的游标，从用户列表末尾向前遍历
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class BatchCursor {
+    // 本轮剩余未处理的位置数量
+    private int cursor;
+    // 本轮已处理的用户数量
+    private int processed;
+    // 本轮开始时的用户数量
+    private int total;
+    private boolean running;
+
+    public void start(int size) {
+        this.cursor = size;
+        this.processed = 0;
+        this.total = size;
+        this.running = true;
+    }
+
+    /**
+     * 取出下一个待处理的位置，用户列表缩短时游标随之收缩
+     *
+     * @param size 当前用户数量
+     * @return 待处理的位置，-1代表本轮已处理完成
+     */
+    public int next(int size) {
+        if (cursor > size) {
+            cursor = size;
+        }
+        if (cursor == 0) {
+            return -1;
+        }
+        cursor--;
+        processed++;
+        return cursor;
+    }
+
+    public void finishIfDone() {
+        if (cursor == 0) {
+            running = false;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("{");
+        sb.append("\"running\":").append(running);
+        sb.append(",\"remaining\":").append(cursor);
+        sb.append(",\"processed\":").append(processed);
+        sb.append(",\"total\":").append(total);
+        sb.append(",\"done\":").append(!running);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package io.nuls.contract.pocm.model;
+
+import java.math.BigInteger;
+
+/**
+ * 一次委托分配的结果
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class DepositAllocation {
+    // 实际委托金额
+    private BigInteger actualDeposit = BigInteger.ZERO;
+    // 查询过的节点数量
+    private int visitedAgents;
+    // 发起的委托数量
+    private int depositCount;
+    // 移除的已注销节点数量
+    private int removedAgents;
+
+    public void visit() {
+        visitedAgents++;
+    }
+
+    public void deposit(BigInteger value) {
+        actualDeposit = actualDeposit.add(value);
+        depositCount++;
+    }
+
+    public void removeAgent() {
+        removedAgents++;
+    }
+
+    public BigInteger getActualDeposit() {
+        return actualDeposit;
+    }
+
+    public int getVisitedAgents() {
+        return visitedAgents;
+    }
+
+    public int getDepositCount() {
+        return depositCount;
+    }
+
+    public int getRemovedAgents() {
+        return removedAgents;
+    }
+}
@@ -0,0 +1,58 @@
+package io.nuls.contract.pocm.model;
+
+import java.math.BigInteger;
+
+/**
+ * 用户抵押信息的查询结果，字段与UserInfo原有的JSON格式保持一致，UserInfo的存储格式调整时不影响查询接口
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class UserDepositInfo {
+
+    private BigInteger amount;
+    private BigInteger rewardDebt;
+    private BigInteger availableAmount;
+    private long lastDepositHeight;
+    private BigInteger agentAmount;
+    private boolean openNodeAward;
+    private BigInteger accruedReward;
+
+    public UserDepositInfo(UserInfo user) {
+        this.amount = BigInteger.valueOf(user.getAmount());
+        this.rewardDebt = user.getRewardDebt().toBigInteger();
+        this.availableAmount = BigInteger.valueOf(user.getAvailableAmount());
+        this.lastDepositHeight = user.getLastDepositHeight();
+        this.agentAmount = BigInteger.valueOf(user.getAgentAmount());
+        this.openNodeAward = user.isOpenNodeAward();
+        this.accruedReward = user.getAccruedReward();
+    }
+
+    public BigInteger getAmount() {
+        return amount;
+    }
+
+    public BigInteger getRewardDebt() {
+        return rewardDebt;
+    }
+
+    public BigInteger getAvailableAmount() {
+        return availableAmount;
+    }
+
+    public long getLastDepositHeight() {
+        return lastDepositHeight;
+    }
+
+    public BigInteger getAgentAmount() {
+        return agentAmount;
+    }
+
+    public boolean isOpenNodeAward() {
+        return openNodeAward;
+    }
+
+    public BigInteger getAccruedReward() {
+        return accruedReward;
+    }
+}
@@ -23,93 +23,149 @@
  */
 package io.nuls.contract.pocm.model;
 
+import io.nuls.contract.pocm.util.UInt128;
+
 import java.math.BigInteger;
 
+import static io.nuls.contract.sdk.Utils.require;
+
 /**
+ * 用户抵押信息，金额以na为单位保存为long，标志位压缩保存
+ * <p>
+ * 每个用户的存储：原先为4个BigInteger(各自带一个int数组)加long和boolean，现在为4个long、2个int和1个UInt128(2个long)，
+ * accruedReward只在有已结算未发放的奖励时存在；index替代了原先单独的地址到位置的Map条目。
+ * <p>
+ * 用户仍以地址字符串为key，没有改为二进制地址：合约SDK的Address只提供base58字符串，
+ * 合约内无法取得地址的字节，转换只能自行解码base58，每次访问的开销大于省下的存储
+ * <p>
+ * 不提供从旧布局迁移的入口：合约部署后代码不能升级，已部署的合约不会执行新代码，
+ * 已部署的池子保持原有布局，新布局只用于新部署的池子
+ * <p>
+ * getDepositInfo原有字段的名称和取值不变，另外增加了accruedReward(已结算未发放的奖励)，按字段名读取的链下程序不受影响
+ *
  * @author: PierreLuo
  * @date: 2021/8/31
  */
 public class UserInfo {
 
-    private BigInteger amount;
-    private BigInteger rewardDebt;
-    private BigInteger availableAmount;// 100%
+    private static final int FLAG_OPEN_NODE_AWARD = 1;
+
+    private long amount;
+    private long availableAmount;// 100%
+    private long agentAmount;//共识保证金数量
     private long lastDepositHeight;// last deposit height
-    private BigInteger agentAmount;//共识保证金数量
-    private boolean openNodeAward;//共识节点是否可获得糖果奖励
+    private UInt128 rewardDebt;
+    private UInt128 accruedReward;//已结算未发放的奖励，没有时为null
+    private int flags;//bit0: 共识节点是否可获得糖果奖励
+    private int index;//在用户列表中的位置
 
-    public UserInfo(BigInteger amount, BigInteger available, BigInteger rewardDebt, long lastDepositHeight) {
+    public UserInfo(long amount, long available, long lastDepositHeight) {
         this.amount = amount;
         this.availableAmount = available;
-        this.rewardDebt = rewardDebt;
         this.lastDepositHeight = lastDepositHeight;
-        this.agentAmount = BigInteger.ZERO;
-        this.openNodeAward = false;
+        this.rewardDebt = new UInt128();
     }
 
-    public void addAmount(BigInteger amount, BigInteger available) {
-        this.amount = this.amount.add(amount);
-        this.availableAmount = this.availableAmount.add(available);
+    public void addAmount(long amount, long available) {
+        require(this.amount + amount >= this.amount && this.availableAmount + available >= this.availableAmount, "amount overflow");
+        this.amount += amount;
+        this.availableAmount += available;
     }
 
-    public void subAmount(BigInteger amount, BigInteger available) {
-        this.amount = this.amount.subtract(amount);
-        this.availableAmount = this.availableAmount.subtract(available);
+    public void subAmount(long amount, long available) {
+        this.amount -= amount;
+        this.availableAmount -= available;
     }
 
-    public BigInteger getAmount() {
+    public long getAmount() {
         return amount;
     }
 
-    public void setAmount(BigInteger amount) {
-        this.amount = amount;
+    public long getAvailableAmount() {
+        return availableAmount;
     }
 
-    public BigInteger getRewardDebt() {
-        return rewardDebt;
+    public long getLastDepositHeight() {
+        return lastDepositHeight;
     }
 
-    public void setRewardDebt(BigInteger rewardDebt) {
-        this.rewardDebt = rewardDebt;
+    public void setLastDepositHeight(long lastDepositHeight) {
+        this.lastDepositHeight = lastDepositHeight;
     }
 
-    public BigInteger getAvailableAmount() {
-        return availableAmount;
+    public long getAgentAmount() {
+        return agentAmount;
+    }
+
+    public void setAgentAmount(long agentAmount) {
+        this.agentAmount = agentAmount;
     }
 
-    public void setAvailableAmount(BigInteger availableAmount) {
-        this.availableAmount = availableAmount;
+    public boolean isOpenNodeAward() {
+        return (flags & FLAG_OPEN_NODE_AWARD) != 0;
     }
 
-    public long getLastDepositHeight() {
-        return lastDepositHeight;
+    public void setOpenNodeAward(boolean openNodeAward) {
+        if (openNodeAward) {
+            flags |= FLAG_OPEN_NODE_AWARD;
+        } else {
+            flags &= ~FLAG_OPEN_NODE_AWARD;
+        }
     }
 
-    public void setLastDepositHeight(long lastDepositHeight) {
-        this.lastDepositHeight = lastDepositHeight;
+    public int getIndex() {
+        return index;
     }
 
-    public BigInteger getAgentAmount() {
-        return agentAmount;
+    public void setIndex(int index) {
+        this.index = index;
     }
 
-    public void setAgentAmount(BigInteger agentAmount) {
-        this.agentAmount = agentAmount;
+    public UInt128 getRewardDebt() {
+        return rewardDebt;
     }
 
-    public void addAgentAmount(BigInteger agentAmount) {
-        this.agentAmount = this.agentAmount.add(agentAmount);
+    /**
+     * rewardDebt = availableAmount * accPerShare / 1e12
+     */
+    public void updateRewardDebt(UInt128 accPerShare) {
+        accPerShare.mulDivE12(availableAmount, rewardDebt);
     }
 
-    public void subAgentAmount(BigInteger agentAmount) {
-        this.agentAmount = this.agentAmount.subtract(agentAmount);
+    /**
+     * @return availableAmount * accPerShare / 1e12 - rewardDebt，不大于0时返回0
+     */
+    public BigInteger pendingReward(UInt128 accPerShare) {
+        if (availableAmount == 0) {
+            return BigInteger.ZERO;
+        }
+        UInt128 reward = accPerShare.mulDivE12(availableAmount);
+        if (reward.compareTo(rewardDebt) <= 0) {
+            return BigInteger.ZERO;
+        }
+        return reward.subtract(rewardDebt).toBigInteger();
     }
 
-    public boolean isOpenNodeAward() {
-        return openNodeAward;
+    public boolean hasAccruedReward() {
+        return accruedReward != null;
     }
 
-    public void setOpenNodeAward(boolean openNodeAward) {
-        this.openNodeAward = openNodeAward;
+    public BigInteger getAccruedReward() {
+        return accruedReward == null ? BigInteger.ZERO : accruedReward.toBigInteger();
+    }
+
+    public void addAccruedReward(BigInteger reward) {
+        if (reward.compareTo(BigInteger.ZERO) == 0) {
+            return;
+        }
+        if (accruedReward == null) {
+            accruedReward = UInt128.valueOf(reward);
+        } else {
+            accruedReward.add(UInt128.valueOf(reward));
+        }
+    }
+
+    public void clearAccruedReward() {
+        this.accruedReward = null;
     }
 }
@@ -111,6 +111,9 @@ public class Ownable {
         BigInteger balance = wrapper.balanceOf(Msg.address());
         require(balance.compareTo(value) >= 0, "No enough balance");
         wrapper.transfer(to, value);
+        if (pi.isNRC20Candy && nrc20.equals(pi.candyToken)) {
+            pi.reconcileCandyBalance();
+        }
     }
 
     public void transferOtherAsset(int assetChainId, int assetId, Address to, BigInteger value) {
@@ -119,6 +122,9 @@ public class Ownable {
         BigInteger balance = wrapper.balanceOf(Msg.address());
         require(balance.compareTo(value) >= 0, "No enough balance");
         wrapper.transfer(to, value);
+        if (!pi.isNRC20Candy && assetChainId == pi.candyAssetChainId && assetId == pi.candyAssetId) {
+            pi.reconcileCandyBalance();
+        }
     }
 
     public void transferProjectCandyAsset(Address to, BigInteger value) {
@@ -132,6 +138,8 @@ public class Ownable {
         BigInteger balance = wrapper.balanceOf(Msg.address());
         require(balance.compareTo(value) >= 0, "No enough balance");
         wrapper.transfer(to, value);
+        // 转出额只对链上余额做了校验，记账可能未包含直接转入的糖果，按链上余额校正而不是直接扣减
+        pi.reconcileCandyBalance();
     }
 
     protected void setPocmInfo(PocmInfo pi) {
@@ -0,0 +1,245 @@
+package io.nuls.contract.pocm.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 按comparator升序排列的平衡二叉树(AVL树)，节点上记录子树大小，用于按位置分页
+ * comparator必须是全序：不同的元素比较结果不能为0，删除时按比较结果定位元素
+ * 元素参与比较的字段在树中不能修改，需先删除、修改后再加入
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class AvlTree<T> {
+
+    private final Comparator<T> comparator;
+    private Node<T> root;
+
+    public AvlTree(Comparator<T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public Comparator<T> comparator() {
+        return comparator;
+    }
+
+    public void add(T value) {
+        root = this.insert(root, new Node<T>(value));
+    }
+
+    public void remove(T value) {
+        root = this.delete(root, value);
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * 最小的元素
+     */
+    public T first() {
+        Node<T> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.value;
+    }
+
+    /**
+     * 最大的元素
+     */
+    public T last() {
+        Node<T> node = root;
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.value;
+    }
+
+    /**
+     * 大于或等于probe的最小的元素
+     */
+    public T ceiling(T probe) {
+        Node<T> node = root;
+        Node<T> result = null;
+        while (node != null) {
+            if (comparator.compare(node.value, probe) >= 0) {
+                result = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return result == null ? null : result.value;
+    }
+
+    /**
+     * 升序的所有元素
+     */
+    public List<T> toList() {
+        List<T> list = new ArrayList<T>(this.size());
+        this.collect(root, list);
+        return list;
+    }
+
+    /**
+     * 升序从第offset个开始的limit个元素，按子树大小跳过offset之前的节点
+     */
+    public List<T> range(int offset, int limit) {
+        List<T> list = new ArrayList<T>();
+        this.collectRange(root, offset, limit, list);
+        return list;
+    }
+
+    private void collectRange(Node<T> node, int offset, int limit, List<T> list) {
+        if (node == null || list.size() >= limit) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            this.collectRange(node.left, offset, limit, list);
+        }
+        if (list.size() >= limit) {
+            return;
+        }
+        if (offset <= leftSize) {
+            list.add(node.value);
+        }
+        this.collectRange(node.right, offset > leftSize ? offset - leftSize - 1 : 0, limit, list);
+    }
+
+    private void collect(Node<T> node, List<T> list) {
+        if (node == null) {
+            return;
+        }
+        this.collect(node.left, list);
+        list.add(node.value);
+        this.collect(node.right, list);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> target) {
+        if (node == null) {
+            return target;
+        }
+        if (comparator.compare(target.value, node.value) < 0) {
+            node.left = this.insert(node.left, target);
+        } else {
+            node.right = this.insert(node.right, target);
+        }
+        return balance(node);
+    }
+
+    private Node<T> delete(Node<T> node, T value) {
+        if (node == null) {
+            return null;
+        }
+        int result = comparator.compare(value, node.value);
+        if (result < 0) {
+            node.left = this.delete(node.left, value);
+        } else if (result > 0) {
+            node.right = this.delete(node.right, value);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node<T> min = node.right;
+            while (min.left != null) {
+                min = min.left;
+            }
+            min.right = deleteMin(node.right);
+            min.left = node.left;
+            node = min;
+        }
+        return balance(node);
+    }
+
+    private static <T> Node<T> deleteMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static <T> Node<T> balance(Node<T> node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        } else if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static <T> int height(Node<T> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static <T> int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node<T> {
+        private T value;
+        private Node<T> left;
+        private Node<T> right;
+        private int height;
+        private int size;
+
+        Node(T value) {
+            this.value = value;
+            this.height = 1;
+            this.size = 1;
+        }
+    }
+}
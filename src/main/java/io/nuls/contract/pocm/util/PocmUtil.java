@@ -26,6 +26,8 @@ package io.nuls.contract.pocm.util;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
+import static io.nuls.contract.sdk.Utils.require;
+
 /**
  * @author: PierreLuo
  * @date: 2021/8/31
@@ -43,6 +45,35 @@ public class PocmUtil {
     //100%
     public final static BigDecimal FULL_PERCENT = new BigDecimal("1");
 
+    // 分批处理所有用户的类型
+    public final static int BATCH_RECEIVE = 0;
+    public final static int BATCH_QUIT = 1;
+    public final static int BATCH_GIVE_UP = 2;
+    // 分批处理时，剩余gas低于此值则停止处理下一个用户
+    public final static long BATCH_GAS_RESERVE = 1000000L;
+
+    // 选择委托节点的策略: 依次遍历节点、优先填满节点、平均分散到各节点
+    public final static int DEPOSIT_POLICY_SEQUENTIAL = 0;
+    public final static int DEPOSIT_POLICY_FILL_FIRST = 1;
+    public final static int DEPOSIT_POLICY_SPREAD_EVENLY = 2;
+
+    // 退出委托的策略: 逐笔选择委托、按计划一次选出需要退出的委托
+    public final static int WITHDRAW_POLICY_GREEDY = 0;
+    public final static int WITHDRAW_POLICY_PLANNED = 1;
+    // 计划退出委托时，搜索的组合数量上限
+    public final static int WITHDRAW_PLAN_SEARCH_LIMIT = 2000;
+
+    // multicall单次最多执行的操作数量
+    public final static int MULTICALL_MAX_OPERATIONS = 20;
+
+    // 分页查询单页的最大数量
+    public final static int PAGE_MAX_LIMIT = 100;
+
+    // 质押统计中抵押金额分段的下限(na)，分别为100、1000、1万、10万、100万个NULS
+    public final static long[] STATS_BUCKET_BOUNDS = new long[]{10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L};
+    // 质押统计中返回的抵押金额最大的用户数量
+    public final static int TOP_STAKERS_SIZE = 10;
+
     public static BigDecimal toNuls(BigInteger na) {
         return new BigDecimal(na).movePointLeft(8);
     }
@@ -51,4 +82,12 @@ public class PocmUtil {
         return na.subtract(toNuls(na).toBigInteger().multiply(ONE_NULS));
     }
 
+    /**
+     * 用户抵押金额以long保存
+     */
+    public static long toLongNa(BigInteger na) {
+        require(na.compareTo(BigInteger.ZERO) >= 0 && na.bitLength() < 64, "amount out of range");
+        return na.longValue();
+    }
+
 }
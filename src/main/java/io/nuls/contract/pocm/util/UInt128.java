@@ -0,0 +1,167 @@
+package io.nuls.contract.pocm.util;
+
+import java.math.BigInteger;
+
+import static io.nuls.contract.sdk.Utils.require;
+
+/**
+ * 128位无符号整数，以两个long保存，用于累计每份额奖励(accPerShare，放大1e12倍)和用户的奖励债务(rewardDebt)
+ * 计算结果与BigInteger的 amount * accPerShare / 1e12 完全一致，溢出时revert
+ *
+ * @author: PierreLuo
+ * @date: 2026/10/18
+ */
+public class UInt128 implements Comparable<UInt128> {
+
+    private static final long MASK = 0xFFFFFFFFL;
+    // 1e12分两次除以1e6，保证中间结果不超过long
+    private static final long E6 = 1000000L;
+
+    private long high;
+    private long low;
+
+    public UInt128() {
+    }
+
+    public UInt128(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static UInt128 valueOf(BigInteger value) {
+        require(value.signum() >= 0 && value.bitLength() <= 128, "UInt128 overflow");
+        return new UInt128(value.shiftRight(64).longValue(), value.longValue());
+    }
+
+    public BigInteger toBigInteger() {
+        if (high == 0 && low >= 0) {
+            return BigInteger.valueOf(low);
+        }
+        byte[] bytes = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (high >>> (56 - 8 * i));
+            bytes[i + 8] = (byte) (low >>> (56 - 8 * i));
+        }
+        return new BigInteger(1, bytes);
+    }
+
+    public boolean isZero() {
+        return high == 0 && low == 0;
+    }
+
+    public void set(UInt128 value) {
+        this.high = value.high;
+        this.low = value.low;
+    }
+
+    /**
+     * this += value
+     */
+    public void add(UInt128 value) {
+        long newLow = low + value.low;
+        long carry = lessThan(newLow, low) ? 1 : 0;
+        long newHigh = high + value.high;
+        boolean overflow = lessThan(newHigh, high);
+        long result = newHigh + carry;
+        overflow = overflow || lessThan(result, newHigh);
+        require(!overflow, "UInt128 overflow");
+        this.high = result;
+        this.low = newLow;
+    }
+
+    /**
+     * @return this - value，要求this >= value
+     */
+    public UInt128 subtract(UInt128 value) {
+        require(compareTo(value) >= 0, "UInt128 underflow");
+        long newLow = low - value.low;
+        long borrow = lessThan(low, value.low) ? 1 : 0;
+        return new UInt128(high - value.high - borrow, newLow);
+    }
+
+    /**
+     * @return amount * this / 1e12
+     */
+    public UInt128 mulDivE12(long amount) {
+        UInt128 result = new UInt128();
+        mulDivE12(amount, result);
+        return result;
+    }
+
+    /**
+     * target = amount * this / 1e12
+     */
+    public void mulDivE12(long amount, UInt128 target) {
+        require(amount >= 0, "UInt128 negative multiplier");
+        long[] a = new long[]{low & MASK, low >>> 32, high & MASK, high >>> 32};
+        long b0 = amount & MASK;
+        long b1 = amount >>> 32;
+        // 192位乘积，每个元素保存32位
+        long[] r = new long[6];
+        for (int i = 0; i < 4; i++) {
+            long p0 = a[i] * b0;
+            r[i] += p0 & MASK;
+            r[i + 1] += p0 >>> 32;
+            long p1 = a[i] * b1;
+            r[i + 1] += p1 & MASK;
+            r[i + 2] += p1 >>> 32;
+        }
+        long carry = 0;
+        for (int i = 0; i < 6; i++) {
+            long v = r[i] + carry;
+            r[i] = v & MASK;
+            carry = v >>> 32;
+        }
+        divide(r, E6);
+        divide(r, E6);
+        require(r[4] == 0 && r[5] == 0, "UInt128 overflow");
+        target.high = (r[3] << 32) | r[2];
+        target.low = (r[1] << 32) | r[0];
+    }
+
+    private static void divide(long[] r, long divisor) {
+        long rem = 0;
+        for (int i = r.length - 1; i >= 0; i--) {
+            long cur = (rem << 32) | r[i];
+            r[i] = cur / divisor;
+            rem = cur % divisor;
+        }
+    }
+
+    private static boolean lessThan(long a, long b) {
+        return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+    }
+
+    @Override
+    public int compareTo(UInt128 o) {
+        if (high != o.high) {
+            return lessThan(high, o.high) ? -1 : 1;
+        }
+        if (low != o.low) {
+            return lessThan(low, o.low) ? -1 : 1;
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UInt128)) {
+            return false;
+        }
+        UInt128 that = (UInt128) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ (high >>> 32) ^ low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return toBigInteger().toString();
+    }
+}